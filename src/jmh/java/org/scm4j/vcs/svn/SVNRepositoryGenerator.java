@@ -0,0 +1,224 @@
+package org.scm4j.vcs.svn;
+
+import org.apache.commons.io.FileUtils;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.internal.util.SVNPathUtil;
+import org.tmatesoft.svn.core.io.ISVNEditor;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+import org.tmatesoft.svn.core.io.diff.SVNDeltaGenerator;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Generates a local file:// repository with trunk/, branches/ and tags/ layout. Trunk gets a tree of files, then
+ * branches are copied from trunk, tags are copied from trunk or branches and the rest of revisions modify a file on
+ * trunk or on a branch. Commits are made through a commit editor, no working copy is used. A generated repository is
+ * reused if it was generated with the same parameters.
+ */
+public class SVNRepositoryGenerator {
+
+	private static final String PARAMS_FILE_NAME = "generator.properties";
+
+	private final int revisions;
+	private final int branches;
+	private final int tags;
+	private final int files;
+	private final int filesPerDir;
+	private final long seed;
+
+	public SVNRepositoryGenerator(int revisions, int branches, int tags, int files, int filesPerDir, long seed) {
+		if (revisions < branches + tags + 2) {
+			throw new IllegalArgumentException("revisions count is less than branches and tags count");
+		}
+		this.revisions = revisions;
+		this.branches = branches;
+		this.tags = tags;
+		this.files = files;
+		this.filesPerDir = filesPerDir;
+		this.seed = seed;
+	}
+
+	public static String getBranchName(int index) {
+		return String.format("branch-%04d", index);
+	}
+
+	public static String getTagName(int index) {
+		return String.format("tag-%04d", index);
+	}
+
+	public String getFilePath(int index) {
+		return String.format("dir-%03d/file-%05d.txt", index / filesPerDir, index);
+	}
+
+	public int getFiles() {
+		return files;
+	}
+
+	public int getBranches() {
+		return branches;
+	}
+
+	public SVNURL generate(File repoDir) throws SVNException, IOException {
+		File paramsFile = new File(repoDir, PARAMS_FILE_NAME);
+		if (paramsFile.exists() && FileUtils.readFileToString(paramsFile, StandardCharsets.UTF_8).equals(getParams())) {
+			return SVNURL.fromFile(repoDir);
+		}
+		FileUtils.deleteDirectory(repoDir);
+		SVNURL res = SVNRepositoryFactory.createLocalRepository(repoDir, true, false);
+		SVNRepository repository = SVNRepositoryFactory.create(res);
+		try {
+			generate(repository);
+		} finally {
+			repository.closeSession();
+		}
+		FileUtils.writeStringToFile(paramsFile, getParams(), StandardCharsets.UTF_8);
+		return res;
+	}
+
+	private String getParams() {
+		return "revisions=" + revisions + "\nbranches=" + branches + "\ntags=" + tags + "\nfiles=" + files
+				+ "\nfilesPerDir=" + filesPerDir + "\nseed=" + seed + "\n";
+	}
+
+	private void generate(SVNRepository repository) throws SVNException {
+		Random random = new Random(seed);
+		SVNDeltaGenerator deltaGenerator = new SVNDeltaGenerator();
+
+		ISVNEditor editor = repository.getCommitEditor("trunk/ and branches/ created", null);
+		editor.openRoot(-1);
+		for (String dir : new String[] { "trunk", "branches", "tags" }) {
+			editor.addDir(dir, null, -1);
+			editor.closeDir();
+		}
+		editor.closeDir();
+		editor.closeEdit();
+
+		editor = repository.getCommitEditor("initial tree", null);
+		editor.openRoot(-1);
+		editor.openDir("trunk", -1);
+		String openedDir = null;
+		for (int i = 0; i < files; i++) {
+			String filePath = "trunk/" + getFilePath(i);
+			String dir = SVNPathUtil.removeTail(filePath);
+			if (!dir.equals(openedDir)) {
+				if (openedDir != null) {
+					editor.closeDir();
+				}
+				editor.addDir(dir, null, -1);
+				openedDir = dir;
+			}
+			editor.addFile(filePath, null, -1);
+			sendContent(editor, deltaGenerator, filePath, getContent(i, 0));
+		}
+		if (openedDir != null) {
+			editor.closeDir();
+		}
+		editor.closeDir();
+		editor.closeDir();
+		editor.closeEdit();
+
+		List<Character> actions = new ArrayList<>();
+		for (int i = 0; i < revisions - 2; i++) {
+			actions.add(i < branches ? 'b' : i < branches + tags ? 't' : 'm');
+		}
+		// first action creates a branch so tags and modifications always have one to choose from
+		Collections.shuffle(actions.subList(1, actions.size()), random);
+		int branchesCreated = 0;
+		int tagsCreated = 0;
+		for (char action : actions) {
+			long latestRevision = repository.getLatestRevision();
+			String source = branchesCreated == 0 || random.nextInt(10) < 7 ? "trunk" :
+					"branches/" + getBranchName(random.nextInt(branchesCreated));
+			switch (action) {
+			case 'b':
+				copy(repository, "/trunk", "branches", getBranchName(branchesCreated++), latestRevision);
+				break;
+			case 't':
+				copy(repository, "/" + source, "tags", getTagName(tagsCreated++), latestRevision);
+				break;
+			default:
+				int fileIndex = random.nextInt(files);
+				modify(repository, deltaGenerator, source, getFilePath(fileIndex), getContent(fileIndex, latestRevision + 1));
+			}
+		}
+	}
+
+	private void copy(SVNRepository repository, String srcPath, String dstDir, String dstName, long revision)
+			throws SVNException {
+		ISVNEditor editor = repository.getCommitEditor(dstName + " created", null);
+		editor.openRoot(-1);
+		editor.openDir(dstDir, -1);
+		editor.addDir(dstDir + "/" + dstName, srcPath, revision);
+		editor.closeDir();
+		editor.closeDir();
+		editor.closeDir();
+		editor.closeEdit();
+	}
+
+	private void modify(SVNRepository repository, SVNDeltaGenerator deltaGenerator, String branchPath, String filePath,
+			byte[] content) throws SVNException {
+		ISVNEditor editor = repository.getCommitEditor(filePath + " modified", null);
+		editor.openRoot(-1);
+		String path = "";
+		int openedDirs = 0;
+		for (String name : SVNPathUtil.removeTail(branchPath + "/" + filePath).split("/")) {
+			path = SVNPathUtil.append(path, name);
+			editor.openDir(path, -1);
+			openedDirs++;
+		}
+		String fullPath = branchPath + "/" + filePath;
+		editor.openFile(fullPath, -1);
+		sendContent(editor, deltaGenerator, fullPath, content);
+		for (int i = 0; i < openedDirs; i++) {
+			editor.closeDir();
+		}
+		editor.closeDir();
+		editor.closeEdit();
+	}
+
+	private void sendContent(ISVNEditor editor, SVNDeltaGenerator deltaGenerator, String path, byte[] content)
+			throws SVNException {
+		editor.applyTextDelta(path, null);
+		String checksum = deltaGenerator.sendDelta(path, new ByteArrayInputStream(content), editor, true);
+		editor.closeFile(path, checksum);
+	}
+
+	private byte[] getContent(int fileIndex, long revision) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 40; i++) {
+			sb.append("line ").append(i).append(" of file ").append(fileIndex);
+			if (i == fileIndex % 40) {
+				sb.append(" changed in revision ").append(revision);
+			}
+			sb.append("\n");
+		}
+		return sb.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length != 1) {
+			System.err.println("Usage: SVNRepositoryGenerator <repository dir>");
+			System.exit(1);
+		}
+		SVNURL url = fromSystemProperties().generate(new File(args[0]));
+		System.out.println("Generated " + url);
+	}
+
+	/**
+	 * Creates generator with parameters taken from {@code svn.gen.*} system properties, default values make a
+	 * repository with 10000 revisions, 1000 branches, 3000 tags and 10000 files in trunk.
+	 */
+	public static SVNRepositoryGenerator fromSystemProperties() {
+		return new SVNRepositoryGenerator(
+				Integer.getInteger("svn.gen.revisions", 10000),
+				Integer.getInteger("svn.gen.branches", 1000),
+				Integer.getInteger("svn.gen.tags", 3000),
+				Integer.getInteger("svn.gen.files", 10000),
+				Integer.getInteger("svn.gen.filesPerDir", 100),
+				Long.getLong("svn.gen.seed", 1));
+	}
+}
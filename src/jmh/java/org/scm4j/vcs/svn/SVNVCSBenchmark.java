@@ -0,0 +1,197 @@
+package org.scm4j.vcs.svn;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+import org.scm4j.vcs.api.VCSCommit;
+import org.scm4j.vcs.api.VCSDiffEntry;
+import org.scm4j.vcs.api.VCSMergeResult;
+import org.scm4j.vcs.api.VCSTag;
+import org.scm4j.vcs.api.WalkDirection;
+import org.scm4j.vcs.api.workingcopy.VCSWorkspace;
+import org.tmatesoft.svn.core.SVNURL;
+
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link SVNVCS} methods against a repository made by {@link SVNRepositoryGenerator}. Read benchmarks use
+ * the generated repository as is, write benchmarks use a copy of it made for each trial. Read benchmarks reuse one
+ * instance, so its caches are warm, cold variants use a new instance for each call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SVNVCSBenchmark {
+
+	private static final File BASE_DIR = new File(System.getProperty("svn.bench.dir", "build/jmh-repos"));
+
+	@State(Scope.Benchmark)
+	public static class ReadState {
+		SVNRepositoryGenerator generator;
+		SVNURL url;
+		SVNVCS vcs;
+		String lastBranch;
+		Random random = new Random(1);
+
+		@Setup(Level.Trial)
+		public void setUp() throws Exception {
+			generator = SVNRepositoryGenerator.fromSystemProperties();
+			url = generator.generate(new File(BASE_DIR, "repo"));
+			vcs = createVCS(url, "read");
+			lastBranch = SVNRepositoryGenerator.getBranchName(generator.getBranches() - 1);
+		}
+
+		String randomBranch() {
+			return SVNRepositoryGenerator.getBranchName(random.nextInt(generator.getBranches()));
+		}
+
+		String randomFile() {
+			return generator.getFilePath(random.nextInt(generator.getFiles()));
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class ColdReadState {
+		SVNVCS vcs;
+
+		@Setup(Level.Invocation)
+		public void setUp(ReadState readState) {
+			vcs = createVCS(readState.url, "cold-read");
+		}
+
+		@TearDown(Level.Invocation)
+		public void tearDown() {
+			vcs.getSVNRepository().closeSession();
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class WriteState {
+		static final String COMMITS_BRANCH = "benchmark-commits";
+		static final String SRC_BRANCH = "benchmark-src";
+		static final String DST_BRANCH = "benchmark-dst";
+
+		SVNRepositoryGenerator generator;
+		SVNVCS vcs;
+		Random random = new Random(1);
+		int counter;
+
+		@Setup(Level.Trial)
+		public void setUp() throws Exception {
+			generator = SVNRepositoryGenerator.fromSystemProperties();
+			File srcDir = new File(BASE_DIR, "repo");
+			generator.generate(srcDir);
+			File dstDir = new File(BASE_DIR, "repo-copy");
+			FileUtils.deleteDirectory(dstDir);
+			FileUtils.copyDirectory(srcDir, dstDir);
+			vcs = createVCS(SVNURL.fromFile(dstDir), "write");
+			vcs.createBranch(null, COMMITS_BRANCH, "benchmark commits branch created");
+			vcs.createBranch(null, SRC_BRANCH, "benchmark source branch created");
+			vcs.createBranch(null, DST_BRANCH, "benchmark destination branch created");
+		}
+
+		String randomFile() {
+			return generator.getFilePath(random.nextInt(generator.getFiles()));
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class MergeState {
+		@Setup(Level.Invocation)
+		public void setUp(WriteState writeState) {
+			writeState.vcs.setFileContent(WriteState.SRC_BRANCH, writeState.randomFile(),
+					"merged content " + writeState.counter++, "file changed to be merged");
+		}
+	}
+
+	private static SVNVCS createVCS(SVNURL url, String workspaceName) {
+		VCSWorkspace workspace = new VCSWorkspace(new File(BASE_DIR, "workspace-" + workspaceName).getPath());
+		return new SVNVCS(workspace.getVCSRepositoryWorkspace(url.toString()), null, null);
+	}
+
+	@Benchmark
+	public VCSCommit getHeadCommit(ReadState state) {
+		return state.vcs.getHeadCommit(state.randomBranch());
+	}
+
+	@Benchmark
+	public List<VCSCommit> log(ReadState state) {
+		return state.vcs.log(null, 100);
+	}
+
+	@Benchmark
+	public List<VCSCommit> getCommitsRange(ReadState state) {
+		return state.vcs.getCommitsRange(state.randomBranch(), null, WalkDirection.DESC, 100);
+	}
+
+	@Benchmark
+	public List<VCSTag> getTags(ReadState state) {
+		return state.vcs.getTags();
+	}
+
+	@Benchmark
+	public Set<String> getBranches(ReadState state) {
+		return state.vcs.getBranches("");
+	}
+
+	@Benchmark
+	public List<VCSDiffEntry> getBranchesDiff(ReadState state) {
+		return state.vcs.getBranchesDiff(state.lastBranch, null);
+	}
+
+	@Benchmark
+	public String getFileContent(ReadState state) {
+		return state.vcs.getFileContent(state.randomBranch(), state.randomFile(), null);
+	}
+
+	@Benchmark
+	public VCSCommit getHeadCommitCold(ReadState state, ColdReadState coldState) {
+		return coldState.vcs.getHeadCommit(state.randomBranch());
+	}
+
+	@Benchmark
+	public List<VCSCommit> logCold(ColdReadState coldState) {
+		return coldState.vcs.log(null, 100);
+	}
+
+	@Benchmark
+	public List<VCSCommit> getCommitsRangeCold(ReadState state, ColdReadState coldState) {
+		return coldState.vcs.getCommitsRange(state.randomBranch(), null, WalkDirection.DESC, 100);
+	}
+
+	@Benchmark
+	public List<VCSTag> getTagsCold(ColdReadState coldState) {
+		return coldState.vcs.getTags();
+	}
+
+	@Benchmark
+	public Set<String> getBranchesCold(ColdReadState coldState) {
+		return coldState.vcs.getBranches("");
+	}
+
+	@Benchmark
+	public List<VCSDiffEntry> getBranchesDiffCold(ReadState state, ColdReadState coldState) {
+		return coldState.vcs.getBranchesDiff(state.lastBranch, null);
+	}
+
+	@Benchmark
+	public String getFileContentCold(ReadState state, ColdReadState coldState) {
+		return coldState.vcs.getFileContent(state.randomBranch(), state.randomFile(), null);
+	}
+
+	@Benchmark
+	public VCSCommit setFileContent(WriteState state) {
+		return state.vcs.setFileContent(WriteState.COMMITS_BRANCH, state.randomFile(), "content " + state.counter++,
+				"file changed");
+	}
+
+	@Benchmark
+	public VCSMergeResult merge(WriteState state, MergeState mergeState) {
+		return state.vcs.merge(WriteState.SRC_BRANCH, WriteState.DST_BRANCH, "merged");
+	}
+}
@@ -0,0 +1,40 @@
+package org.scm4j.vcs.svn;
+
+/**
+ * Receives metrics of {@link SVNVCS} calls. Implementations are called synchronously by the thread which made the call
+ * so they should be fast and thread-safe.
+ */
+public interface ISVNMetricsListener {
+
+	ISVNMetricsListener NO_OP = new ISVNMetricsListener() {
+	};
+
+	/**
+	 * Called when a top level {@link SVNVCS} method returns or throws. Nested calls made by the method are included.
+	 *
+	 * @param operation method name
+	 * @param durationNanos time spent in the method
+	 * @param repositoryCalls count of calls made to SVNKit repository sessions and clients, one per call. This is not
+	 * the count of protocol requests: a call may issue several of them, e.g. a client copy or an update report, and
+	 * session reconnects are not counted
+	 * @param bytes count of file content and diff bytes transferred
+	 */
+	default void operationCompleted(String operation, long durationNanos, int repositoryCalls, long bytes) {
+	}
+
+	/**
+	 * Called when a working copy is checked out, switched or updated.
+	 *
+	 * @param operation {@code checkout}, {@code switch} or {@code update}
+	 */
+	default void workingCopyUpdated(String operation, long durationNanos) {
+	}
+
+	/**
+	 * Called when a locked working copy is obtained.
+	 *
+	 * @param durationNanos time spent waiting for the lock
+	 */
+	default void workingCopyLocked(long durationNanos) {
+	}
+}
@@ -0,0 +1,40 @@
+package org.scm4j.vcs.svn;
+
+/**
+ * Tag or branch to be created by {@link SVNVCS#createTags(java.util.List, String)} or
+ * {@link SVNVCS#createBranches(java.util.List, String)}
+ */
+public class SVNBranchCopy {
+
+	private final String srcBranchName;
+	private final String revision;
+	private final String name;
+
+	/**
+	 * @param srcBranchName branch to copy, null for the master branch
+	 * @param revision revision to copy, null for the last commit of the branch
+	 * @param name name of the tag or branch to create
+	 */
+	public SVNBranchCopy(String srcBranchName, String revision, String name) {
+		this.srcBranchName = srcBranchName;
+		this.revision = revision;
+		this.name = name;
+	}
+
+	public String getSrcBranchName() {
+		return srcBranchName;
+	}
+
+	public String getRevision() {
+		return revision;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String toString() {
+		return "SVNBranchCopy [srcBranchName=" + srcBranchName + ", revision=" + revision + ", name=" + name + "]";
+	}
+}
@@ -0,0 +1,183 @@
+package org.scm4j.vcs.svn;
+
+import org.scm4j.vcs.api.VCSChangeType;
+import org.scm4j.vcs.api.VCSDiffEntry;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.wc.SVNRevision;
+import org.tmatesoft.svn.core.wc2.SvnDiff;
+import org.tmatesoft.svn.core.wc2.SvnDiffSummarize;
+import org.tmatesoft.svn.core.wc2.SvnOperationFactory;
+import org.tmatesoft.svn.core.wc2.SvnTarget;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Diff between two branches. Both branches are compared at the same revision resolved once on creation. Unified diffs
+ * are produced by a bounded pool of workers, each one reusing its own {@link SvnOperationFactory} and therefore its
+ * repository sessions. Entries may also be streamed to a consumer as the diff summary reports them, unified diff of each
+ * one is produced only when requested.
+ */
+class SVNBranchesDiff implements AutoCloseable {
+
+	private final SVNVCS vcs;
+	private final String dstBranchName;
+	private final SVNURL srcBranchUrl;
+	private final SVNURL dstBranchUrl;
+	private final long revision;
+	private final BlockingQueue<SvnOperationFactory> idleFactories = new LinkedBlockingQueue<>();
+	private final List<SvnOperationFactory> factories = new ArrayList<>();
+	private final int maxFactories;
+	private Long dstFirstRevision;
+	private Long dstHeadRevision;
+	private boolean closed;
+
+	SVNBranchesDiff(SVNVCS vcs, String srcBranchName, String dstBranchName, int maxFactories) throws SVNException {
+		this.vcs = vcs;
+		this.dstBranchName = dstBranchName;
+		this.maxFactories = Math.max(1, maxFactories);
+		srcBranchUrl = vcs.getBranchUrl(srcBranchName);
+		dstBranchUrl = vcs.getBranchUrl(dstBranchName);
+		revision = vcs.getLatestRevision();
+	}
+
+	List<VCSDiffEntry> getDiffEntries() throws SVNException {
+		final List<VCSDiffEntry> res = new ArrayList<>();
+		summarize((filePath, changeType) -> res.add(new VCSDiffEntry(filePath, changeType, null)));
+		return res;
+	}
+
+	void getDiffEntries(final Consumer<SVNLazyDiffEntry> consumer) throws SVNException {
+		summarize((filePath, changeType) -> consumer.accept(new SVNLazyDiffEntry(this, filePath, changeType)));
+	}
+
+	private void summarize(final BiConsumer<String, VCSChangeType> receiver) throws SVNException {
+		SvnOperationFactory svnOperationFactory = createFactory();
+		try {
+			final SvnDiffSummarize summarizeDiff = svnOperationFactory.createDiffSummarize();
+			summarizeDiff.setSources(
+					SvnTarget.fromURL(dstBranchUrl, SVNRevision.create(revision)),
+					SvnTarget.fromURL(srcBranchUrl, SVNRevision.create(revision)));
+			summarizeDiff.setReceiver((target, diffStatus) -> {
+				if (diffStatus.getPath().length() == 0) {
+					return;
+				}
+				receiver.accept(diffStatus.getPath(), vcs.SVNChangeTypeToVCSChangeType(diffStatus.getModificationType()));
+			});
+			SVNOperation.repositoryCall();
+			summarizeDiff.run();
+		} finally {
+			svnOperationFactory.dispose();
+		}
+	}
+
+	/**
+	 * Produces unified diffs of the entries on the shared workers of {@link SVNVCS}, at most one per factory at once.
+	 */
+	List<VCSDiffEntry> fillUnifiedDiffs(List<VCSDiffEntry> entries) throws SVNException {
+		List<SVNWorkers.Task<VCSDiffEntry>> tasks = new ArrayList<>(entries.size());
+		for (final VCSDiffEntry entry : entries) {
+			tasks.add(() -> fillUnifiedDiff(entry));
+		}
+		return vcs.getWorkers().invokeAll(tasks, maxFactories);
+	}
+
+	private synchronized void resolveDstRevisions() throws SVNException {
+		if (dstFirstRevision == null) {
+			dstFirstRevision = vcs.getBranchFirstCommit(dstBranchName).getRevision();
+			dstHeadRevision = vcs.getBranchEntry(dstBranchName, revision).getRevision();
+		}
+	}
+
+	private VCSDiffEntry fillUnifiedDiff(VCSDiffEntry entry) throws SVNException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		writeUnifiedDiff(entry, baos);
+		SVNOperation.bytes(baos.size());
+		return new VCSDiffEntry(entry.getFilePath(), entry.getChangeType(),
+				new String(baos.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	private void writeUnifiedDiff(VCSDiffEntry entry, OutputStream out) throws SVNException {
+		writeUnifiedDiff(entry.getFilePath(), entry.getChangeType(), out);
+	}
+
+	void writeUnifiedDiff(String filePath, VCSChangeType changeType, OutputStream out) throws SVNException {
+		if (changeType == VCSChangeType.ADD || changeType == VCSChangeType.DELETE) {
+			resolveDstRevisions();
+		}
+		SvnOperationFactory svnOperationFactory = leaseFactory();
+		try {
+			final SvnDiff diff = svnOperationFactory.createDiff();
+			if (changeType == VCSChangeType.ADD) {
+				diff.setSource(SvnTarget.fromURL(srcBranchUrl.appendPath(filePath, true), SVNRevision.create(revision)),
+						SVNRevision.create(dstFirstRevision),
+						SVNRevision.create(revision));
+			} else if (changeType == VCSChangeType.DELETE) {
+				diff.setSource(SvnTarget.fromURL(dstBranchUrl.appendPath(filePath, true), SVNRevision.create(revision)),
+						SVNRevision.create(dstHeadRevision),
+						SVNRevision.create(dstFirstRevision));
+			} else {
+				diff.setSources(
+						SvnTarget.fromURL(dstBranchUrl.appendPath(filePath, true), SVNRevision.create(revision)),
+						SvnTarget.fromURL(srcBranchUrl.appendPath(filePath, true), SVNRevision.create(revision)));
+			}
+			diff.setOutput(out);
+			SVNOperation.repositoryCall();
+			diff.run();
+		} finally {
+			releaseFactory(svnOperationFactory);
+		}
+	}
+
+	private SvnOperationFactory leaseFactory() {
+		SvnOperationFactory res = idleFactories.poll();
+		if (res != null) {
+			return res;
+		}
+		synchronized (factories) {
+			if (closed) {
+				throw new IllegalStateException("branches diff is closed");
+			}
+			if (factories.size() < maxFactories) {
+				res = createFactory();
+				factories.add(res);
+				return res;
+			}
+		}
+		try {
+			return idleFactories.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+	}
+
+	private SvnOperationFactory createFactory() {
+		SvnOperationFactory res = new SvnOperationFactory();
+		res.setAuthenticationManager(vcs.getSVNRepository().getAuthenticationManager());
+		return res;
+	}
+
+	private void releaseFactory(SvnOperationFactory svnOperationFactory) {
+		idleFactories.offer(svnOperationFactory);
+	}
+
+	@Override
+	public void close() {
+		synchronized (factories) {
+			closed = true;
+			for (SvnOperationFactory svnOperationFactory : factories) {
+				svnOperationFactory.dispose();
+			}
+			factories.clear();
+		}
+		idleFactories.clear();
+	}
+}
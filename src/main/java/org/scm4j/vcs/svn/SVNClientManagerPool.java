@@ -0,0 +1,112 @@
+package org.scm4j.vcs.svn;
+
+import org.tmatesoft.svn.core.wc.SVNClientManager;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Client managers used by concurrent calls. SVNClientManager, its clients and options are not thread-safe, so a
+ * manager is used by one thread at a time instead of serializing all calls. The primary manager is leased first, extra
+ * managers are created on demand. Nested leases made by the same thread reuse the manager already leased by that
+ * thread.
+ */
+class SVNClientManagerPool {
+
+	private final ThreadLocal<Lease> leases = new ThreadLocal<>();
+	private final Deque<SVNClientManager> idleManagers = new ArrayDeque<>();
+	private final Set<SVNClientManager> extraManagers = new HashSet<>();
+	private final Supplier<SVNClientManager> factory;
+	private SVNClientManager primary;
+	private boolean primaryLeased;
+
+	SVNClientManagerPool(SVNClientManager primary, Supplier<SVNClientManager> factory) {
+		this.primary = primary;
+		this.factory = factory;
+	}
+
+	synchronized SVNClientManager getPrimary() {
+		return primary;
+	}
+
+	/**
+	 * Replaces the primary manager. Extra managers are recreated, so they follow the new configuration.
+	 */
+	void setPrimary(SVNClientManager primary) {
+		List<SVNClientManager> toDispose;
+		synchronized (this) {
+			this.primary = primary;
+			primaryLeased = false;
+			toDispose = new ArrayList<>(idleManagers);
+			idleManagers.clear();
+			// managers leased at the moment are disposed on release
+			extraManagers.clear();
+		}
+		for (SVNClientManager manager : toDispose) {
+			manager.dispose();
+		}
+	}
+
+	SVNClientManager lease() {
+		Lease lease = leases.get();
+		if (lease == null) {
+			lease = new Lease(take());
+			leases.set(lease);
+		}
+		lease.count++;
+		return lease.manager;
+	}
+
+	void release(SVNClientManager manager) {
+		Lease lease = leases.get();
+		if (lease == null || lease.manager != manager) {
+			throw new IllegalStateException("client manager is not leased by current thread");
+		}
+		if (--lease.count == 0) {
+			leases.remove();
+			give(manager);
+		}
+	}
+
+	private SVNClientManager take() {
+		synchronized (this) {
+			if (!primaryLeased) {
+				primaryLeased = true;
+				return primary;
+			}
+			SVNClientManager idleManager = idleManagers.pollFirst();
+			if (idleManager != null) {
+				return idleManager;
+			}
+		}
+		SVNClientManager res = factory.get();
+		synchronized (this) {
+			extraManagers.add(res);
+		}
+		return res;
+	}
+
+	private void give(SVNClientManager manager) {
+		synchronized (this) {
+			if (manager == primary) {
+				primaryLeased = false;
+				return;
+			}
+			if (extraManagers.contains(manager)) {
+				idleManagers.addFirst(manager);
+				return;
+			}
+		}
+		// leased before the primary manager was replaced
+		manager.dispose();
+	}
+
+	private static class Lease {
+		final SVNClientManager manager;
+		int count;
+
+		Lease(SVNClientManager manager) {
+			this.manager = manager;
+		}
+	}
+}
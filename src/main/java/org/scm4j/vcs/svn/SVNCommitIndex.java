@@ -0,0 +1,461 @@
+package org.scm4j.vcs.svn;
+
+import org.apache.commons.io.FileUtils;
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNErrorMessage;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNLogEntry;
+import org.tmatesoft.svn.core.SVNLogEntryPath;
+import org.tmatesoft.svn.core.internal.util.SVNPathUtil;
+import org.tmatesoft.svn.core.io.SVNRepository;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Local index of commits metadata: author, date, message and changed paths of each revision. Kept on disk only: log
+ * entries are appended to the entries file, references to them are appended to posting files keyed by path hash, so
+ * a history query reads the postings of the path bucket and the entries found there. Subtree postings of a path refer
+ * to revisions changing the path or its descendants, change postings refer to revisions adding, deleting or replacing
+ * the path. Sizes of the files and the last indexed revision are committed to the state file after each batch of
+ * entries, data beyond the committed sizes is truncated by the next sync. History of a branch is answered as a strict
+ * node log would be, i.e. it stops at the revision where the branch was copied or added.
+ */
+class SVNCommitIndex {
+
+	static final int BUCKETS = 64;
+	private static final int MAGIC = 0x53564e49; // SVNI
+	private static final int VERSION = 2;
+	private static final int POSTING_SIZE = 24;
+	private static final int BATCH_ENTRIES = 1000;
+	private static final String ENTRIES_FILE = "entries.dat";
+	private static final String STATE_FILE = "state.dat";
+	private static final String LOCK_FILE = "lock";
+
+	private final File dir;
+	private volatile State state = new State();
+
+	SVNCommitIndex(File dir) {
+		this.dir = dir;
+	}
+
+	File getDir() {
+		return dir;
+	}
+
+	long getIndexedRevision() {
+		return state.indexedRevision;
+	}
+
+	/**
+	 * Brings the index up to the latest revision of the repository. Log is requested for the repository location path,
+	 * so changed paths outside of it are not indexed. Entries indexed by other processes are taken from the state file.
+	 */
+	synchronized void sync(SVNRepository repository) throws SVNException, IOException {
+		long latestRevision = repository.getLatestRevision();
+		if (latestRevision <= getIndexedRevision()) {
+			return;
+		}
+		FileUtils.forceMkdir(dir);
+		try (FileChannel lockChannel = FileChannel.open(new File(dir, LOCK_FILE).toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE)) {
+			FileLock fileLock = lockChannel.lock();
+			try {
+				state = recover();
+				if (latestRevision <= getIndexedRevision()) {
+					return;
+				}
+				final Batch batch = new Batch(state);
+				SVNOperation.repositoryCall();
+				repository.log(new String[] { "" }, getIndexedRevision() + 1, latestRevision, true, false, 0, logEntry -> {
+					try {
+						batch.add(logEntry);
+						if (batch.size() == BATCH_ENTRIES) {
+							state = batch.commit();
+						}
+					} catch (IOException e) {
+						throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_ERROR, e.getMessage()), e);
+					}
+				});
+				state = batch.commit();
+			} finally {
+				fileLock.release();
+			}
+		}
+	}
+
+	/**
+	 * Returns log entries of the path from the peg revision (-1 for the latest indexed one) down to the revision where
+	 * the path was copied or added, newest first. The walk stops when limit entries are found, 0 means no limit. Null is
+	 * returned if the path is the repository root, does not exist at the peg revision or its history can not be told
+	 * from the changed paths.
+	 */
+	List<SVNLogEntry> getHistory(String path, long pegRevision, int limit) throws IOException {
+		State state = this.state;
+		if (path.isEmpty() || path.equals("/")) {
+			return null;
+		}
+		long maxRevision = pegRevision < 0 ? state.indexedRevision : Math.min(pegRevision, state.indexedRevision);
+		// revision to entry offset, newest first
+		NavigableMap<Long, Long> candidates = new TreeMap<>(Collections.reverseOrder());
+		readPostings(getSubtreeFile(path), state.subtreeSizes[getBucket(path)], path, maxRevision, candidates);
+		for (String parent = SVNPathUtil.removeTail(path); !parent.isEmpty() && !parent.equals("/");
+				parent = SVNPathUtil.removeTail(parent)) {
+			readPostings(getChangesFile(parent), state.changesSizes[getBucket(parent)], parent, maxRevision,
+					candidates);
+		}
+		if (candidates.isEmpty()) {
+			return null;
+		}
+		List<SVNLogEntry> res = new ArrayList<>();
+		try (FileChannel channel = FileChannel.open(new File(dir, ENTRIES_FILE).toPath(), StandardOpenOption.READ)) {
+			for (long offset : candidates.values()) {
+				DataInputStream in = new DataInputStream(new BufferedInputStream(
+						Channels.newInputStream(channel.position(offset))));
+				SVNLogEntry entry = read(in);
+				char change = getChange(path, entry);
+				if (change == 0) {
+					// path hash collision
+					continue;
+				}
+				if (change == SVNLogEntryPath.TYPE_DELETED) {
+					return null;
+				}
+				res.add(entry);
+				if (res.size() == limit || change == SVNLogEntryPath.TYPE_ADDED
+						|| change == SVNLogEntryPath.TYPE_REPLACED) {
+					return res;
+				}
+			}
+		}
+		// history before the indexed revisions is unknown
+		return null;
+	}
+
+	private void readPostings(File file, long size, String path, long maxRevision, Map<Long, Long> res)
+			throws IOException {
+		if (size == 0) {
+			return;
+		}
+		long hash = getHash(path);
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			for (long i = size / POSTING_SIZE; i > 0; i--) {
+				long postingHash = in.readLong();
+				long revision = in.readLong();
+				long offset = in.readLong();
+				if (postingHash == hash && revision <= maxRevision) {
+					res.put(revision, offset);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns type of the path root change made by the entry, {@link SVNLogEntryPath#TYPE_MODIFIED} if only
+	 * descendants are changed, {@link SVNLogEntryPath#TYPE_DELETED} if a parent is removed, added or replaced or 0 if
+	 * the path is not affected.
+	 */
+	private char getChange(String path, SVNLogEntry entry) {
+		char res = 0;
+		for (SVNLogEntryPath entryPath : entry.getChangedPaths().values()) {
+			String changedPath = entryPath.getPath();
+			if (changedPath.equals(path)) {
+				if (entryPath.getType() != SVNLogEntryPath.TYPE_MODIFIED) {
+					return entryPath.getType();
+				}
+				res = SVNLogEntryPath.TYPE_MODIFIED;
+			} else if (path.startsWith(changedPath.endsWith("/") ? changedPath : changedPath + "/")) {
+				if (entryPath.getType() != SVNLogEntryPath.TYPE_MODIFIED) {
+					// the path is removed or comes with a copy of the parent, history is not indexed by the path
+					return SVNLogEntryPath.TYPE_DELETED;
+				}
+			} else if (changedPath.startsWith(path + "/")) {
+				res = SVNLogEntryPath.TYPE_MODIFIED;
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Reads the committed state and truncates data appended after it, e.g. by an interrupted sync. The index is reset
+	 * if the state is missing, of another version or does not match the files.
+	 */
+	private State recover() throws IOException {
+		State res = readState();
+		if (res != null && truncate(new File(dir, ENTRIES_FILE), res.entriesSize)) {
+			for (int bucket = 0; bucket < BUCKETS; bucket++) {
+				if (!truncate(getSubtreeFile(bucket), res.subtreeSizes[bucket])
+						|| !truncate(getChangesFile(bucket), res.changesSizes[bucket])) {
+					res = null;
+					break;
+				}
+			}
+		}
+		if (res == null) {
+			File[] files = dir.listFiles();
+			if (files != null) {
+				for (File file : files) {
+					if (!file.getName().equals(LOCK_FILE)) {
+						Files.delete(file.toPath());
+					}
+				}
+			}
+			res = new State();
+		}
+		return res;
+	}
+
+	private boolean truncate(File file, long size) throws IOException {
+		if (!file.exists()) {
+			return size == 0;
+		}
+		if (file.length() < size) {
+			return false;
+		}
+		if (file.length() > size) {
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+				channel.truncate(size);
+			}
+		}
+		return true;
+	}
+
+	private State readState() throws IOException {
+		File file = new File(dir, STATE_FILE);
+		if (!file.exists()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != BUCKETS) {
+				return null;
+			}
+			State res = new State();
+			res.indexedRevision = in.readLong();
+			res.entriesSize = in.readLong();
+			for (int bucket = 0; bucket < BUCKETS; bucket++) {
+				res.subtreeSizes[bucket] = in.readLong();
+				res.changesSizes[bucket] = in.readLong();
+			}
+			return res;
+		} catch (EOFException e) {
+			return null;
+		}
+	}
+
+	private void writeState(State state) throws IOException {
+		File tmpFile = new File(dir, STATE_FILE + ".tmp");
+		try (FileOutputStream fileOut = new FileOutputStream(tmpFile)) {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(BUCKETS);
+			out.writeLong(state.indexedRevision);
+			out.writeLong(state.entriesSize);
+			for (int bucket = 0; bucket < BUCKETS; bucket++) {
+				out.writeLong(state.subtreeSizes[bucket]);
+				out.writeLong(state.changesSizes[bucket]);
+			}
+			out.flush();
+			fileOut.getFD().sync();
+		}
+		Files.move(tmpFile.toPath(), new File(dir, STATE_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private File getSubtreeFile(String path) {
+		return getSubtreeFile(getBucket(path));
+	}
+
+	private File getSubtreeFile(int bucket) {
+		return new File(dir, "subtree-" + bucket + ".dat");
+	}
+
+	private File getChangesFile(String path) {
+		return getChangesFile(getBucket(path));
+	}
+
+	private File getChangesFile(int bucket) {
+		return new File(dir, "changes-" + bucket + ".dat");
+	}
+
+	private static int getBucket(String path) {
+		return (int) (getHash(path) & (BUCKETS - 1));
+	}
+
+	/**
+	 * FNV-1a hash of the path.
+	 */
+	private static long getHash(String path) {
+		long res = 0xcbf29ce484222325L;
+		for (int i = 0; i < path.length(); i++) {
+			res ^= path.charAt(i);
+			res *= 0x100000001b3L;
+		}
+		return res;
+	}
+
+	private void write(DataOutputStream out, SVNLogEntry entry) throws IOException {
+		out.writeLong(entry.getRevision());
+		writeString(out, entry.getAuthor());
+		out.writeLong(entry.getDate() == null ? -1 : entry.getDate().getTime());
+		writeString(out, entry.getMessage());
+		Collection<SVNLogEntryPath> paths = entry.getChangedPaths().values();
+		out.writeInt(paths.size());
+		for (SVNLogEntryPath path : paths) {
+			out.writeChar(path.getType());
+			writeString(out, path.getPath());
+			writeString(out, path.getCopyPath());
+			out.writeLong(path.getCopyRevision());
+		}
+	}
+
+	private SVNLogEntry read(DataInputStream in) throws IOException {
+		long revision = in.readLong();
+		String author = readString(in);
+		long date = in.readLong();
+		String message = readString(in);
+		int pathsCount = in.readInt();
+		Map<String, SVNLogEntryPath> paths = new HashMap<>(pathsCount * 2);
+		for (int i = 0; i < pathsCount; i++) {
+			char type = in.readChar();
+			String path = readString(in);
+			String copyPath = readString(in);
+			long copyRevision = in.readLong();
+			paths.put(path, new SVNLogEntryPath(path, type, copyPath, copyRevision));
+		}
+		return new SVNLogEntry(paths, revision, author, date < 0 ? null : new Date(date), message);
+	}
+
+	private void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+		} else {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writePosting(DataOutputStream out, String path, long revision, long offset) throws IOException {
+		out.writeLong(getHash(path));
+		out.writeLong(revision);
+		out.writeLong(offset);
+	}
+
+	/**
+	 * Committed sizes of the index files and the last indexed revision. Not changed once published.
+	 */
+	private static class State {
+		long indexedRevision;
+		long entriesSize;
+		final long[] subtreeSizes = new long[BUCKETS];
+		final long[] changesSizes = new long[BUCKETS];
+
+		State copy() {
+			State res = new State();
+			res.indexedRevision = indexedRevision;
+			res.entriesSize = entriesSize;
+			System.arraycopy(subtreeSizes, 0, res.subtreeSizes, 0, BUCKETS);
+			System.arraycopy(changesSizes, 0, res.changesSizes, 0, BUCKETS);
+			return res;
+		}
+	}
+
+	/**
+	 * Entries and postings received since the last commit, kept in memory until appended to the files.
+	 */
+	private class Batch {
+		private State committed;
+		private final ByteArrayOutputStream entries = new ByteArrayOutputStream();
+		private final DataOutputStream entriesOut = new DataOutputStream(entries);
+		private final ByteArrayOutputStream[] subtreePostings = new ByteArrayOutputStream[BUCKETS];
+		private final ByteArrayOutputStream[] changesPostings = new ByteArrayOutputStream[BUCKETS];
+		private long lastRevision;
+		private int size;
+
+		Batch(State committed) {
+			this.committed = committed;
+		}
+
+		int size() {
+			return size;
+		}
+
+		void add(SVNLogEntry logEntry) throws IOException {
+			long offset = committed.entriesSize + entries.size();
+			write(entriesOut, logEntry);
+			Set<String> subtrees = new HashSet<>();
+			for (SVNLogEntryPath entryPath : logEntry.getChangedPaths().values()) {
+				String path = entryPath.getPath();
+				if (entryPath.getType() != SVNLogEntryPath.TYPE_MODIFIED) {
+					writePosting(getPostings(changesPostings, path), path, logEntry.getRevision(), offset);
+				}
+				for (; !path.isEmpty() && !path.equals("/") && subtrees.add(path); path = SVNPathUtil.removeTail(path)) {
+					writePosting(getPostings(subtreePostings, path), path, logEntry.getRevision(), offset);
+				}
+			}
+			lastRevision = logEntry.getRevision();
+			size++;
+		}
+
+		private DataOutputStream getPostings(ByteArrayOutputStream[] postings, String path) {
+			int bucket = getBucket(path);
+			if (postings[bucket] == null) {
+				postings[bucket] = new ByteArrayOutputStream();
+			}
+			return new DataOutputStream(postings[bucket]);
+		}
+
+		/**
+		 * Appends the batch to the files and commits the new state.
+		 */
+		State commit() throws IOException {
+			if (size == 0) {
+				return committed;
+			}
+			State res = committed.copy();
+			res.entriesSize += append(new File(dir, ENTRIES_FILE), entries);
+			for (int bucket = 0; bucket < BUCKETS; bucket++) {
+				res.subtreeSizes[bucket] += append(getSubtreeFile(bucket), subtreePostings[bucket]);
+				res.changesSizes[bucket] += append(getChangesFile(bucket), changesPostings[bucket]);
+				subtreePostings[bucket] = null;
+				changesPostings[bucket] = null;
+			}
+			res.indexedRevision = lastRevision;
+			writeState(res);
+			entries.reset();
+			committed = res;
+			size = 0;
+			return res;
+		}
+
+		private long append(File file, ByteArrayOutputStream data) throws IOException {
+			if (data == null || data.size() == 0) {
+				return 0;
+			}
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+				data.writeTo(Channels.newOutputStream(channel));
+				channel.force(false);
+			}
+			return data.size();
+		}
+	}
+}
@@ -0,0 +1,574 @@
+package org.scm4j.vcs.svn;
+
+import org.apache.commons.io.FileUtils;
+import org.tmatesoft.svn.core.*;
+import org.tmatesoft.svn.core.internal.util.SVNURLUtil;
+import org.tmatesoft.svn.core.io.ISVNEditor;
+import org.tmatesoft.svn.core.io.ISVNReporter;
+import org.tmatesoft.svn.core.io.ISVNReporterBaton;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.diff.SVNDeltaProcessor;
+import org.tmatesoft.svn.core.io.diff.SVNDiffWindow;
+import org.tmatesoft.svn.core.wc.SVNRevision;
+import org.tmatesoft.svn.core.wc.SVNUpdateClient;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Exports a branch at a revision to a plain dir: no pristine copies and no working copy metadata. The tree is
+ * received by a single update report, file deltas are applied to temp files in the target dir which replace the
+ * exported files when closed. Exported revision, url and svn:externals definitions are stored in a manifest in the
+ * target dir, so the next export of the same url sends only changes since that revision: deltas are applied against
+ * the exported files and verified by checksum, files which do not match are read again in full by the shared workers
+ * once the update is received. Externals are exported again only if their url or revision changed. File contents are written as stored in the
+ * repository, i.e. keywords and eol-style are not translated.
+ */
+class SVNExporter {
+
+	static final String MANIFEST_FILE_NAME = ".svn-export";
+
+	private static final String MANIFEST_URL = "url";
+	private static final String MANIFEST_REVISION = "revision";
+	private static final String MANIFEST_EXTERNALS_PREFIX = "externals.";
+	private static final String MANIFEST_EXPORTED_EXTERNAL_PREFIX = "exported.";
+	private static final String TEMP_FILE_PREFIX = ".svn-export";
+
+	private final SVNVCS vcs;
+	private final String branchName;
+	private final File targetDir;
+	private final int threadsCount;
+	private final boolean exportExternals;
+	private final Map<String, String> externals = new TreeMap<>();
+	private final Map<String, String> exportedExternals = new TreeMap<>();
+
+	SVNExporter(SVNVCS vcs, String branchName, File targetDir, int threadsCount, boolean exportExternals) {
+		this.vcs = vcs;
+		this.branchName = branchName;
+		this.targetDir = targetDir;
+		this.threadsCount = Math.max(1, threadsCount);
+		this.exportExternals = exportExternals;
+	}
+
+	/**
+	 * Exports the branch at the revision (-1 for the latest one) and returns the exported revision.
+	 */
+	long export(long revision) throws SVNException, IOException {
+		SVNURL url = vcs.getBranchUrl(branchName);
+		File manifestFile = new File(targetDir, MANIFEST_FILE_NAME);
+		Properties manifest = readManifest(manifestFile);
+		long baseRevision = -1;
+		if (manifest != null && url.toString().equals(manifest.getProperty(MANIFEST_URL))) {
+			baseRevision = Long.parseLong(manifest.getProperty(MANIFEST_REVISION));
+			for (String name : manifest.stringPropertyNames()) {
+				if (name.startsWith(MANIFEST_EXTERNALS_PREFIX)) {
+					externals.put(name.substring(MANIFEST_EXTERNALS_PREFIX.length()), manifest.getProperty(name));
+				} else if (name.startsWith(MANIFEST_EXPORTED_EXTERNAL_PREFIX)) {
+					exportedExternals.put(name.substring(MANIFEST_EXPORTED_EXTERNAL_PREFIX.length()),
+							manifest.getProperty(name));
+				}
+			}
+		} else if (manifest != null) {
+			// exported from another url before, nothing to update
+			FileUtils.cleanDirectory(targetDir);
+		}
+		FileUtils.forceMkdir(targetDir);
+		// an interrupted export leaves no manifest, so the next one starts over
+		Files.deleteIfExists(manifestFile.toPath());
+
+		SVNSessionPool sessionPool = vcs.getSessionPool();
+		ExportEditor editor = new ExportEditor();
+		SVNRepository repository = sessionPool.lease();
+		try {
+			if (revision < 0) {
+				SVNOperation.repositoryCall();
+				revision = repository.getLatestRevision();
+			}
+			if (baseRevision != revision) {
+				update(repository, url, baseRevision, revision, editor);
+			}
+		} finally {
+			sessionPool.release(repository);
+		}
+		// files are read again once the session is released, reads lease it if the pool is limited to one session
+		editor.refetch(revision);
+		if (exportExternals) {
+			exportExternals(url);
+		} else {
+			exportedExternals.clear();
+		}
+		writeManifest(manifestFile, url, revision);
+		return revision;
+	}
+
+	private void update(SVNRepository repository, SVNURL url, long baseRevision, long revision, ExportEditor editor)
+			throws SVNException {
+		final long reportedRevision = baseRevision < 0 ? revision : baseRevision;
+		final boolean startEmpty = baseRevision < 0;
+		// pooled sessions are located at the repository root, the report is made against the branch
+		SVNURL location = repository.getLocation();
+		repository.setLocation(url, false);
+		try {
+			SVNOperation.repositoryCall();
+			repository.update(revision, null, SVNDepth.INFINITY, false, new ISVNReporterBaton() {
+				@Override
+				public void report(ISVNReporter reporter) throws SVNException {
+					reporter.setPath("", null, reportedRevision, SVNDepth.INFINITY, startEmpty);
+					reporter.finishReport();
+				}
+			}, editor);
+		} catch (SVNException | RuntimeException e) {
+			// an interrupted report leaves the connection in an unknown state
+			repository.closeSession();
+			throw e;
+		} finally {
+			editor.deleteTempFiles();
+			repository.setLocation(location, false);
+		}
+	}
+
+	private void exportExternals(SVNURL url) throws SVNException, IOException {
+		Map<String, String> exported = new TreeMap<>();
+		if (!externals.isEmpty()) {
+			SVNSessionPool sessionPool = vcs.getSessionPool();
+			SVNRepository repository = sessionPool.lease();
+			try {
+				exportExternals(repository, url, exported);
+			} finally {
+				sessionPool.release(repository);
+			}
+		}
+		for (String path : exportedExternals.keySet()) {
+			if (!exported.containsKey(path)) {
+				// definition is removed
+				FileUtils.deleteDirectory(new File(targetDir, path));
+			}
+		}
+		exportedExternals.clear();
+		exportedExternals.putAll(exported);
+	}
+
+	private void exportExternals(SVNRepository repository, SVNURL url, Map<String, String> exported)
+			throws SVNException, IOException {
+		SVNOperation.repositoryCall();
+		SVNURL rootUrl = repository.getRepositoryRoot(true);
+		SVNUpdateClient updateClient = vcs.createUpdateClient();
+		for (Map.Entry<String, String> dirExternals : externals.entrySet()) {
+			String dir = dirExternals.getKey();
+			SVNURL ownerUrl = dir.isEmpty() ? url : url.appendPath(dir, false);
+			for (External external : parseExternals(dirExternals.getValue())) {
+				String path = dir.isEmpty() ? external.path : dir + "/" + external.path;
+				SVNURL externalUrl = resolveUrl(external.url, rootUrl, ownerUrl);
+				SVNRevision pegRevision = external.pegRevision.isValid() ? external.pegRevision : SVNRevision.HEAD;
+				SVNRevision externalRevision = external.revision.isValid() ? external.revision : pegRevision;
+				if (SVNRevision.HEAD.equals(externalRevision)) {
+					// last changed revision, so commits elsewhere in the repository do not make the export outdated
+					SVNDirEntry entry = getHeadEntry(repository, rootUrl, externalUrl);
+					if (entry != null) {
+						externalRevision = SVNRevision.create(entry.getRevision());
+					}
+				}
+				String state = externalUrl + "@" + pegRevision + " " + externalRevision;
+				File externalDir = new File(targetDir, path);
+				exported.put(path, state);
+				if (state.equals(exportedExternals.get(path)) && externalDir.isDirectory()) {
+					continue;
+				}
+				FileUtils.deleteDirectory(externalDir);
+				SVNOperation.repositoryCall();
+				updateClient.doExport(externalUrl, externalDir, pegRevision, externalRevision, null, true,
+						SVNDepth.INFINITY);
+			}
+		}
+	}
+
+	/**
+	 * Externals of the same repository are probed by the pooled session, a session to another repository is opened for
+	 * the call.
+	 */
+	private SVNDirEntry getHeadEntry(SVNRepository repository, SVNURL rootUrl, SVNURL externalUrl)
+			throws SVNException {
+		if (SVNURLUtil.isAncestor(rootUrl, externalUrl)) {
+			SVNOperation.repositoryCall();
+			return repository.info("/" + SVNURLUtil.getRelativeURL(rootUrl, externalUrl, false), -1);
+		}
+		SVNRepository externalRepository = vcs.createSession(externalUrl);
+		try {
+			SVNOperation.repositoryCall();
+			return externalRepository.info("", -1);
+		} finally {
+			externalRepository.closeSession();
+		}
+	}
+
+	/**
+	 * Parses svn:externals definitions of both formats: {@code [-r REV] URL[@PEG] PATH} and pre-1.5
+	 * {@code PATH [-r REV] URL}.
+	 */
+	static List<External> parseExternals(String definitions) {
+		List<External> res = new ArrayList<>();
+		for (String line : definitions.split("\\r?\\n")) {
+			List<String> tokens = tokenize(line.trim());
+			if (tokens.isEmpty() || tokens.get(0).startsWith("#")) {
+				continue;
+			}
+			External external = new External();
+			List<String> args = new ArrayList<>();
+			for (Iterator<String> it = tokens.iterator(); it.hasNext();) {
+				String token = it.next();
+				if (token.equals("-r") && it.hasNext()) {
+					external.revision = SVNRevision.parse(it.next());
+				} else if (token.startsWith("-r")) {
+					external.revision = SVNRevision.parse(token.substring(2));
+				} else {
+					args.add(token);
+				}
+			}
+			if (args.size() != 2) {
+				continue;
+			}
+			if (isUrl(args.get(0))) {
+				external.url = args.get(0);
+				external.path = args.get(1);
+				int pegIndex = external.url.lastIndexOf('@');
+				if (pegIndex > external.url.lastIndexOf('/')) {
+					external.pegRevision = SVNRevision.parse(external.url.substring(pegIndex + 1));
+					external.url = external.url.substring(0, pegIndex);
+				}
+			} else {
+				external.path = args.get(0);
+				external.url = args.get(1);
+				external.pegRevision = external.revision;
+			}
+			res.add(external);
+		}
+		return res;
+	}
+
+	private static boolean isUrl(String value) {
+		return value.contains("://") || value.startsWith("^/") || value.startsWith("/") || value.startsWith("../");
+	}
+
+	/**
+	 * Splits the line by whitespaces, double quotes and backslash escapes are respected.
+	 */
+	private static List<String> tokenize(String line) {
+		List<String> res = new ArrayList<>();
+		StringBuilder token = null;
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (Character.isWhitespace(c) && !quoted) {
+				if (token != null) {
+					res.add(token.toString());
+					token = null;
+				}
+				continue;
+			}
+			if (token == null) {
+				token = new StringBuilder();
+			}
+			if (c == '\\' && i + 1 < line.length()) {
+				token.append(line.charAt(++i));
+			} else if (c == '"') {
+				quoted = !quoted;
+			} else {
+				token.append(c);
+			}
+		}
+		if (token != null) {
+			res.add(token.toString());
+		}
+		return res;
+	}
+
+	/**
+	 * Resolves absolute url and urls relative to the repository root ({@code ^/}), to the dir owning the definition
+	 * ({@code ../}), to the scheme ({@code //}) and to the server ({@code /}).
+	 */
+	static SVNURL resolveUrl(String url, SVNURL rootUrl, SVNURL ownerUrl) throws SVNException {
+		if (url.startsWith("^/")) {
+			return appendRelativePath(rootUrl, url.substring(2));
+		}
+		if (url.startsWith("../")) {
+			return appendRelativePath(ownerUrl, url);
+		}
+		if (url.startsWith("//")) {
+			return SVNURL.parseURIEncoded(ownerUrl.getProtocol() + ":" + url);
+		}
+		if (url.startsWith("/")) {
+			return SVNURL.parseURIEncoded(ownerUrl.getProtocol() + "://" + ownerUrl.getHost()
+					+ (ownerUrl.hasPort() ? ":" + ownerUrl.getPort() : "") + url);
+		}
+		return SVNURL.parseURIEncoded(url);
+	}
+
+	private static SVNURL appendRelativePath(SVNURL url, String relativePath) throws SVNException {
+		SVNURL res = url;
+		for (String segment : relativePath.split("/")) {
+			if (segment.equals("..")) {
+				res = res.removePathTail();
+			} else if (!segment.isEmpty() && !segment.equals(".")) {
+				res = res.appendPath(segment, true);
+			}
+		}
+		return res;
+	}
+
+	private Properties readManifest(File manifestFile) throws IOException {
+		if (!manifestFile.isFile()) {
+			return null;
+		}
+		Properties res = new Properties();
+		try (InputStream in = new FileInputStream(manifestFile)) {
+			res.load(in);
+		}
+		return res.getProperty(MANIFEST_URL) == null || res.getProperty(MANIFEST_REVISION) == null ? null : res;
+	}
+
+	private void writeManifest(File manifestFile, SVNURL url, long revision) throws IOException {
+		Properties manifest = new Properties();
+		manifest.setProperty(MANIFEST_URL, url.toString());
+		manifest.setProperty(MANIFEST_REVISION, Long.toString(revision));
+		for (Map.Entry<String, String> dirExternals : externals.entrySet()) {
+			manifest.setProperty(MANIFEST_EXTERNALS_PREFIX + dirExternals.getKey(), dirExternals.getValue());
+		}
+		for (Map.Entry<String, String> exportedExternal : exportedExternals.entrySet()) {
+			manifest.setProperty(MANIFEST_EXPORTED_EXTERNAL_PREFIX + exportedExternal.getKey(),
+					exportedExternal.getValue());
+		}
+		File tempFile = new File(targetDir, MANIFEST_FILE_NAME + ".tmp");
+		try (OutputStream out = new FileOutputStream(tempFile)) {
+			manifest.store(out, null);
+		}
+		Files.move(tempFile.toPath(), manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Receives the tree and applies file deltas to temp files. Files which fail the checksum check or are missing
+	 * locally are collected and read again by {@link #refetch(long)}.
+	 */
+	private class ExportEditor implements ISVNEditor {
+
+		private final Deque<String> dirs = new ArrayDeque<>();
+		private final Map<String, OpenFile> openFiles = new HashMap<>();
+		private final Map<String, Boolean> refetches = new TreeMap<>();
+
+		void deleteTempFiles() {
+			for (OpenFile openFile : openFiles.values()) {
+				close(openFile.base);
+				close(openFile.content);
+				if (openFile.tempFile != null) {
+					FileUtils.deleteQuietly(openFile.tempFile);
+				}
+			}
+			openFiles.clear();
+		}
+
+		void refetch(long revision) throws SVNException {
+			List<SVNWorkers.Task<Void>> tasks = new ArrayList<>();
+			for (Map.Entry<String, Boolean> refetch : refetches.entrySet()) {
+				final String path = refetch.getKey();
+				final Boolean executable = refetch.getValue();
+				tasks.add(() -> {
+					byte[] bytes = vcs.readFileContent(branchName, path, revision);
+					File file = new File(targetDir, path);
+					try {
+						FileUtils.writeByteArrayToFile(file, bytes == null ? new byte[0] : bytes);
+					} catch (IOException e) {
+						throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_ERROR, e.getMessage()), e);
+					}
+					if (executable != null) {
+						file.setExecutable(executable, false);
+					}
+					return null;
+				});
+			}
+			if (!tasks.isEmpty()) {
+				vcs.getWorkers().invokeAll(tasks, threadsCount);
+			}
+			refetches.clear();
+		}
+
+		@Override
+		public void targetRevision(long revision) {
+		}
+
+		@Override
+		public void openRoot(long revision) {
+			dirs.push("");
+		}
+
+		@Override
+		public void deleteEntry(String path, long revision) {
+			FileUtils.deleteQuietly(new File(targetDir, path));
+			externals.keySet().removeIf(dir -> dir.equals(path) || dir.startsWith(path + "/"));
+		}
+
+		@Override
+		public void absentDir(String path) {
+		}
+
+		@Override
+		public void absentFile(String path) {
+		}
+
+		@Override
+		public void addDir(String path, String copyFromPath, long copyFromRevision) throws SVNException {
+			dirs.push(path);
+			File dir = new File(targetDir, path);
+			if (dir.isFile()) {
+				FileUtils.deleteQuietly(dir);
+			}
+			if (!dir.isDirectory() && !dir.mkdirs()) {
+				throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_ERROR, "Can not create dir " + dir));
+			}
+		}
+
+		@Override
+		public void openDir(String path, long revision) {
+			dirs.push(path);
+		}
+
+		@Override
+		public void changeDirProperty(String name, SVNPropertyValue value) {
+			if (SVNProperty.EXTERNALS.equals(name)) {
+				if (value == null || value.getString() == null || value.getString().trim().isEmpty()) {
+					externals.remove(dirs.peek());
+				} else {
+					externals.put(dirs.peek(), value.getString());
+				}
+			}
+		}
+
+		@Override
+		public void closeDir() {
+			dirs.pop();
+		}
+
+		@Override
+		public void addFile(String path, String copyFromPath, long copyFromRevision) {
+			openFiles.put(path, new OpenFile(true));
+		}
+
+		@Override
+		public void openFile(String path, long revision) {
+			openFiles.put(path, new OpenFile(false));
+		}
+
+		@Override
+		public void changeFileProperty(String path, String name, SVNPropertyValue value) {
+			if (SVNProperty.EXECUTABLE.equals(name)) {
+				openFiles.get(path).executable = value != null;
+			}
+		}
+
+		@Override
+		public void applyTextDelta(String path, String baseChecksum) throws SVNException {
+			OpenFile openFile = openFiles.get(path);
+			File file = new File(targetDir, path);
+			try {
+				openFile.base = openFile.added || !file.isFile()
+						? new ByteArrayInputStream(new byte[0])
+						: new FileInputStream(file);
+				// parent dir could be removed locally since the previous export
+				FileUtils.forceMkdir(file.getParentFile());
+				openFile.tempFile = File.createTempFile(TEMP_FILE_PREFIX, ".tmp", file.getParentFile());
+				openFile.content = new BufferedOutputStream(new FileOutputStream(openFile.tempFile));
+			} catch (IOException e) {
+				throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_ERROR, e.getMessage()), e);
+			}
+			openFile.deltaProcessor.applyTextDelta(openFile.base, openFile.content, true);
+		}
+
+		@Override
+		public OutputStream textDeltaChunk(String path, SVNDiffWindow diffWindow) throws SVNException {
+			return openFiles.get(path).deltaProcessor.textDeltaChunk(diffWindow);
+		}
+
+		@Override
+		public void textDeltaEnd(String path) {
+			OpenFile openFile = openFiles.get(path);
+			openFile.checksum = openFile.deltaProcessor.textDeltaEnd();
+			close(openFile.base);
+			close(openFile.content);
+		}
+
+		@Override
+		public void closeFile(String path, String textChecksum) throws SVNException {
+			OpenFile openFile = openFiles.remove(path);
+			File file = new File(targetDir, path);
+			if (openFile.tempFile != null) {
+				if (textChecksum != null && !textChecksum.equals(openFile.checksum)) {
+					// exported file was changed locally, delta does not apply
+					FileUtils.deleteQuietly(openFile.tempFile);
+					refetches.put(path, openFile.executable);
+					return;
+				}
+				SVNOperation.bytes(openFile.tempFile.length());
+				try {
+					Files.move(openFile.tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				} catch (IOException e) {
+					FileUtils.deleteQuietly(openFile.tempFile);
+					throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_ERROR, e.getMessage()), e);
+				}
+			} else if (openFile.added && !file.isFile()) {
+				// empty file, no delta is sent
+				try {
+					FileUtils.touch(file);
+				} catch (IOException e) {
+					throw new SVNException(SVNErrorMessage.create(SVNErrorCode.IO_ERROR, e.getMessage()), e);
+				}
+			} else if (!file.isFile()) {
+				// only properties are changed but the file is removed locally
+				refetches.put(path, openFile.executable);
+				return;
+			}
+			if (openFile.executable != null && file.isFile()) {
+				file.setExecutable(openFile.executable, false);
+			}
+		}
+
+		@Override
+		public SVNCommitInfo closeEdit() {
+			return null;
+		}
+
+		@Override
+		public void abortEdit() {
+		}
+	}
+
+	private static void close(Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException e) {
+				// nothing to do
+			}
+		}
+	}
+
+	private static class OpenFile {
+		final boolean added;
+		final SVNDeltaProcessor deltaProcessor = new SVNDeltaProcessor();
+		InputStream base;
+		OutputStream content;
+		File tempFile;
+		String checksum;
+		Boolean executable;
+
+		OpenFile(boolean added) {
+			this.added = added;
+		}
+	}
+
+	static class External {
+		String path;
+		String url;
+		SVNRevision pegRevision = SVNRevision.UNDEFINED;
+		SVNRevision revision = SVNRevision.UNDEFINED;
+	}
+}
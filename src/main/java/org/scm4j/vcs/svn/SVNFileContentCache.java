@@ -0,0 +1,114 @@
+package org.scm4j.vcs.svn;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * LRU cache of file contents keyed by branch, file path and revision. File content at a concrete revision never
+ * changes, so entries are evicted only when the total size of cached contents exceeds the budget. Last changed
+ * revisions of branches are remembered per repository latest revision, so HEAD reads need no request until the
+ * repository moves.
+ */
+class SVNFileContentCache {
+
+	static final int MAX_HEADS = 1024;
+
+	private final Map<Key, byte[]> contents = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<String, long[]> heads = new LinkedHashMap<String, long[]>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, long[]> eldest) {
+			return size() > MAX_HEADS;
+		}
+	};
+	private long maxBytes;
+	private long bytes;
+
+	synchronized long getMaxBytes() {
+		return maxBytes;
+	}
+
+	synchronized void setMaxBytes(long maxBytes) {
+		this.maxBytes = maxBytes;
+		evict();
+	}
+
+	synchronized byte[] get(String branchPath, String filePath, long revision) {
+		return contents.get(new Key(branchPath, filePath, revision));
+	}
+
+	synchronized void put(String branchPath, String filePath, long revision, byte[] content) {
+		if (content.length > maxBytes) {
+			return;
+		}
+		byte[] prev = contents.put(new Key(branchPath, filePath, revision), content);
+		bytes += content.length - (prev == null ? 0 : prev.length);
+		evict();
+	}
+
+	/**
+	 * Returns last changed revision of the branch remembered at the repository latest revision or -1 if it is unknown.
+	 */
+	synchronized long getHeadRevision(String branchPath, long latestRevision) {
+		long[] head = heads.get(branchPath);
+		return head != null && head[0] == latestRevision ? head[1] : -1;
+	}
+
+	synchronized void putHeadRevision(String branchPath, long latestRevision, long revision) {
+		heads.put(branchPath, new long[] {latestRevision, revision});
+	}
+
+	synchronized void clear() {
+		contents.clear();
+		heads.clear();
+		bytes = 0;
+	}
+
+	private void evict() {
+		Iterator<byte[]> it = contents.values().iterator();
+		while (bytes > maxBytes && it.hasNext()) {
+			bytes -= it.next().length;
+			it.remove();
+		}
+	}
+
+	private static class Key {
+		final String branchPath;
+		final String filePath;
+		final long revision;
+
+		Key(String branchPath, String filePath, long revision) {
+			this.branchPath = branchPath;
+			this.filePath = normalize(filePath);
+			this.revision = revision;
+		}
+
+		private static String normalize(String filePath) {
+			String res = filePath.replace('\\', '/');
+			while (res.startsWith("/")) {
+				res = res.substring(1);
+			}
+			return res;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) o;
+			return revision == key.revision && branchPath.equals(key.branchPath) && filePath.equals(key.filePath);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(branchPath, filePath, revision);
+		}
+	}
+}
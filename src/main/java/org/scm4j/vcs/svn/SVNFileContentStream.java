@@ -0,0 +1,99 @@
+package org.scm4j.vcs.svn;
+
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNProperties;
+import org.tmatesoft.svn.core.io.SVNRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * File content pulled lazily. Content is read by a shared worker thread using a pooled repository session and passed
+ * through a fixed size pipe, so the whole file is never kept in memory. The session is reset if reading is not
+ * completed, e.g. the stream is closed early.
+ */
+public class SVNFileContentStream extends InputStream {
+
+	private static final int PIPE_SIZE = 64 * 1024;
+
+	private final SVNFileInfo fileInfo;
+	private final PipedInputStream in;
+	private final CountDownLatch readDone = new CountDownLatch(1);
+	private volatile Exception readError;
+
+	SVNFileContentStream(final SVNSessionPool sessionPool, SVNWorkers workers, final String path, final long revision,
+			SVNProperties properties) throws IOException {
+		fileInfo = new SVNFileInfo(revision, properties);
+		in = new PipedInputStream(PIPE_SIZE);
+		final PipedOutputStream out = new PipedOutputStream(in);
+		workers.execute(() -> {
+			try {
+				SVNRepository repository = sessionPool.lease();
+				try {
+					repository.getFile(path, revision, null, out);
+				} catch (SVNException | RuntimeException e) {
+					readError = e;
+					repository.closeSession();
+				} finally {
+					sessionPool.release(repository);
+				}
+			} catch (RuntimeException e) {
+				readError = e;
+			} finally {
+				try {
+					out.close();
+				} catch (IOException e) {
+					// reading side is closed already
+				}
+				readDone.countDown();
+			}
+		});
+	}
+
+	public SVNFileInfo getFileInfo() {
+		return fileInfo;
+	}
+
+	@Override
+	public int read() throws IOException {
+		int res = in.read();
+		if (res < 0) {
+			checkReadError();
+		}
+		return res;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int res = in.read(b, off, len);
+		if (res < 0) {
+			checkReadError();
+		}
+		return res;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return in.available();
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	private void checkReadError() throws IOException {
+		try {
+			readDone.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		}
+		if (readError != null) {
+			throw new IOException(readError);
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package org.scm4j.vcs.svn;
+
+import org.tmatesoft.svn.core.SVNProperties;
+import org.tmatesoft.svn.core.SVNProperty;
+
+/**
+ * Revision and properties of a file which content is streamed by {@link SVNVCS}
+ */
+public class SVNFileInfo {
+
+	private final long revision;
+	private final SVNProperties properties;
+
+	SVNFileInfo(long revision, SVNProperties properties) {
+		this.revision = revision;
+		this.properties = properties;
+	}
+
+	/**
+	 * @return revision the content is read at. Latest repository revision if HEAD was requested
+	 */
+	public String getRevision() {
+		return Long.toString(revision);
+	}
+
+	/**
+	 * @return revision the file was last changed at
+	 */
+	public String getCommittedRevision() {
+		return properties.getStringValue(SVNProperty.COMMITTED_REVISION);
+	}
+
+	public SVNProperties getProperties() {
+		return properties;
+	}
+
+	@Override
+	public String toString() {
+		return "SVNFileInfo [revision=" + revision + ", committedRevision=" + getCommittedRevision() + "]";
+	}
+}
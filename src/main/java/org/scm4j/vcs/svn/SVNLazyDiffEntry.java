@@ -0,0 +1,62 @@
+package org.scm4j.vcs.svn;
+
+import org.scm4j.vcs.api.VCSChangeType;
+import org.scm4j.vcs.api.VCSDiffEntry;
+import org.scm4j.vcs.api.exceptions.EVCSException;
+import org.tmatesoft.svn.core.SVNException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+
+/**
+ * Branches diff entry which unified diff is produced on request only. Unified diff is available until the
+ * streaming {@link SVNVCS#getBranchesDiff(String, String, java.util.function.Consumer)} call returns.
+ */
+public class SVNLazyDiffEntry {
+
+	private final SVNBranchesDiff diff;
+	private final String filePath;
+	private final VCSChangeType changeType;
+
+	SVNLazyDiffEntry(SVNBranchesDiff diff, String filePath, VCSChangeType changeType) {
+		this.diff = diff;
+		this.filePath = filePath;
+		this.changeType = changeType;
+	}
+
+	public String getFilePath() {
+		return filePath;
+	}
+
+	public VCSChangeType getChangeType() {
+		return changeType;
+	}
+
+	public void writeUnifiedDiff(OutputStream out) {
+		try {
+			diff.writeUnifiedDiff(filePath, changeType, out);
+		} catch (SVNException e) {
+			throw new EVCSException(e);
+		}
+	}
+
+	public String getUnifiedDiff() {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		writeUnifiedDiff(baos);
+		try {
+			return baos.toString("UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	public VCSDiffEntry toVCSDiffEntry() {
+		return new VCSDiffEntry(filePath, changeType, getUnifiedDiff());
+	}
+
+	@Override
+	public String toString() {
+		return "SVNLazyDiffEntry [filePath=" + filePath + ", changeType=" + changeType + "]";
+	}
+}
@@ -0,0 +1,123 @@
+package org.scm4j.vcs.svn;
+
+import org.tmatesoft.svn.core.SVNException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Cache of dir listings keyed by path and validated by the latest revision of the repository. The latest revision is
+ * requested again only if the last known one is older than the staleness bound. Concurrent loads of the same path at
+ * the same revision are coalesced: the first caller loads, the rest wait for its result. Failed loads are not cached.
+ */
+class SVNListingCache<V> {
+
+	interface Loader<V> {
+		V load() throws SVNException;
+	}
+
+	private final Map<String, Listing<V>> listings = new HashMap<>();
+	private long maxStaleness;
+	private long latestRevision = -1;
+	private long validatedAt;
+
+	synchronized long getMaxStaleness() {
+		return maxStaleness;
+	}
+
+	synchronized void setMaxStaleness(long maxStaleness) {
+		this.maxStaleness = maxStaleness;
+	}
+
+	/**
+	 * Makes the next call request the latest revision regardless of the staleness bound.
+	 */
+	synchronized void invalidate() {
+		latestRevision = -1;
+	}
+
+	synchronized void clear() {
+		listings.clear();
+		latestRevision = -1;
+	}
+
+	/**
+	 * Returns latest revision of the repository known not longer than the staleness bound ago.
+	 */
+	long getLatestRevision(Callable<Long> revisionSource) throws SVNException {
+		synchronized (this) {
+			if (latestRevision >= 0 && System.currentTimeMillis() - validatedAt < maxStaleness) {
+				return latestRevision;
+			}
+		}
+		long res = call(revisionSource);
+		synchronized (this) {
+			latestRevision = res;
+			validatedAt = System.currentTimeMillis();
+		}
+		return res;
+	}
+
+	V get(String path, long revision, Loader<V> loader) throws SVNException {
+		Listing<V> listing;
+		boolean load = false;
+		synchronized (this) {
+			listing = listings.get(path);
+			if (listing == null || listing.revision != revision) {
+				listing = new Listing<>(revision, loader);
+				listings.put(path, listing);
+				load = true;
+			}
+		}
+		if (load) {
+			listing.task.run();
+		}
+		try {
+			return call(listing.task::get);
+		} catch (SVNException | RuntimeException e) {
+			synchronized (this) {
+				listings.remove(path, listing);
+			}
+			throw e;
+		}
+	}
+
+	private <T> T call(Callable<T> callable) throws SVNException {
+		try {
+			return callable.call();
+		} catch (ExecutionException e) {
+			return rethrow(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (Exception e) {
+			return rethrow(e);
+		}
+	}
+
+	private <T> T rethrow(Throwable e) throws SVNException {
+		if (e instanceof SVNException) {
+			throw (SVNException) e;
+		}
+		if (e instanceof RuntimeException) {
+			throw (RuntimeException) e;
+		}
+		if (e instanceof Error) {
+			throw (Error) e;
+		}
+		throw new RuntimeException(e);
+	}
+
+	private static class Listing<V> {
+		final long revision;
+		final FutureTask<V> task;
+
+		Listing(long revision, Loader<V> loader) {
+			this.revision = revision;
+			task = new FutureTask<>(loader::load);
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package org.scm4j.vcs.svn;
+
+import org.scm4j.vcs.api.WalkDirection;
+import org.scm4j.vcs.api.exceptions.EVCSException;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNLogEntry;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily pages through the log of a branch. Each page is requested by a separate limited log call when the previous
+ * one is consumed, no repository session is held between pages. Log is walked from the start revision to the branch
+ * head (ascending) or to the branch first commit (descending).
+ */
+public class SVNLogCursor implements Iterator<SVNLogEntry> {
+
+	private final SVNVCS vcs;
+	private final String branchPath;
+	private final WalkDirection direction;
+	private final int chunkSize;
+	private final boolean changedPaths;
+	private final long endRevision;
+	private final Deque<SVNLogEntry> chunk = new ArrayDeque<>();
+	private long nextRevision;
+	private boolean exhausted;
+
+	SVNLogCursor(SVNVCS vcs, String branchName, String startRevision, WalkDirection direction, int chunkSize,
+			boolean changedPaths) throws SVNException {
+		this.vcs = vcs;
+		this.direction = direction;
+		this.chunkSize = Math.max(1, chunkSize);
+		this.changedPaths = changedPaths;
+		branchPath = vcs.getBranchName(branchName);
+		long firstRevision = vcs.getBranchFirstCommit(branchName).getRevision();
+		if (direction == WalkDirection.ASC) {
+			nextRevision = startRevision == null ? firstRevision : Long.parseLong(startRevision);
+			endRevision = vcs.getLatestRevision();
+		} else {
+			nextRevision = startRevision == null ? vcs.getLatestRevision() : Long.parseLong(startRevision);
+			endRevision = firstRevision;
+		}
+	}
+
+	public boolean isChangedPaths() {
+		return changedPaths;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (chunk.isEmpty() && !exhausted) {
+			fetch();
+		}
+		return !chunk.isEmpty();
+	}
+
+	@Override
+	public SVNLogEntry next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return chunk.poll();
+	}
+
+	private void fetch() {
+		if (direction == WalkDirection.ASC ? nextRevision > endRevision : nextRevision < endRevision) {
+			exhausted = true;
+			return;
+		}
+		try {
+			vcs.readLog(branchPath, nextRevision, endRevision, changedPaths, chunkSize, chunk::add);
+		} catch (SVNException e) {
+			throw new EVCSException(e);
+		}
+		if (chunk.size() < chunkSize) {
+			exhausted = true;
+		} else {
+			long lastRevision = chunk.peekLast().getRevision();
+			nextRevision = direction == WalkDirection.ASC ? lastRevision + 1 : lastRevision - 1;
+		}
+	}
+}
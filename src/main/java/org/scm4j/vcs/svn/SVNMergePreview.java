@@ -0,0 +1,178 @@
+package org.scm4j.vcs.svn;
+
+import de.regnis.q.sequence.line.QSequenceLineRAByteData;
+import org.apache.commons.lang3.StringUtils;
+import org.scm4j.vcs.api.VCSMergeResult;
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNLogEntryPath;
+import org.tmatesoft.svn.core.SVNNodeKind;
+import org.tmatesoft.svn.core.internal.wc.FSMergerBySequence;
+import org.tmatesoft.svn.core.internal.wc.SVNDiffConflictChoiceStyle;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.wc.SVNDiffOptions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Predicts result of merging one branch into another from repository data only. Revisions to merge are the eligible
+ * ones according to svn:mergeinfo, or all revisions of the source branch since its first commit if mergeinfo can not
+ * be read. As svn merge does, eligible revisions are applied range by range, each contiguous range against its own
+ * base: the source branch right before the range. Files changed by a range are merged in memory into the destination
+ * branch content, a file is reported as conflicting if the text changes overlap or if it is removed or added by one
+ * side and differs on the other one. Ranges after the first one with conflicts are not applied, as by svn merge.
+ */
+class SVNMergePreview {
+
+	private static final byte[] CONFLICT_START = "<<<<<<<".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] CONFLICT_SEPARATOR = "=======".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] CONFLICT_END = ">>>>>>>".getBytes(StandardCharsets.UTF_8);
+
+	private final SVNVCS vcs;
+	private final String srcBranchName;
+	private final String dstBranchName;
+	// destination file contents with ranges applied so far, null value for a removed file
+	private final Map<String, byte[]> merged = new HashMap<>();
+	private long revision;
+
+	SVNMergePreview(SVNVCS vcs, String srcBranchName, String dstBranchName) {
+		this.vcs = vcs;
+		this.srcBranchName = srcBranchName;
+		this.dstBranchName = dstBranchName;
+	}
+
+	VCSMergeResult run() throws SVNException, IOException {
+		revision = vcs.getLatestRevision();
+		List<long[]> ranges = new ArrayList<>();
+		try {
+			List<Long> eligibleRevisions = vcs.getEligibleRevisions(srcBranchName, dstBranchName);
+			int i = 0;
+			while (i < eligibleRevisions.size()) {
+				long start = eligibleRevisions.get(i);
+				long end = start;
+				while (++i < eligibleRevisions.size() && eligibleRevisions.get(i) == end + 1) {
+					end++;
+				}
+				ranges.add(new long[] {start, end});
+			}
+		} catch (SVNException e) {
+			// mergeinfo is not available, the whole source branch will be merged
+			long firstRevision = vcs.getBranchFirstCommit(srcBranchName).getRevision();
+			if (firstRevision < revision) {
+				ranges.add(new long[] {firstRevision + 1, revision});
+			}
+		}
+		if (ranges.isEmpty()) {
+			return new VCSMergeResult(true, new ArrayList<>());
+		}
+		NavigableMap<Long, List<SVNLogEntryPath>> srcChanges = getChanges(ranges.get(0)[0]);
+		for (long[] range : ranges) {
+			List<String> conflictingFiles = new ArrayList<>();
+			for (Map.Entry<String, SVNLogEntryPath> change : getRangeChanges(srcChanges, range).entrySet()) {
+				if (!applyChange(change.getKey(), change.getValue(), range)) {
+					conflictingFiles.add(change.getKey());
+				}
+			}
+			if (!conflictingFiles.isEmpty()) {
+				return new VCSMergeResult(false, conflictingFiles);
+			}
+		}
+		return new VCSMergeResult(true, new ArrayList<>());
+	}
+
+	/**
+	 * Returns changes of the source branch paths made since the start revision, keyed by revision.
+	 */
+	private NavigableMap<Long, List<SVNLogEntryPath>> getChanges(long startRevision) throws SVNException {
+		final NavigableMap<Long, List<SVNLogEntryPath>> res = new TreeMap<>();
+		final String branchPath = getRepositoryPath(vcs.getBranchName(srcBranchName)) + "/";
+		vcs.readLog(vcs.getBranchName(srcBranchName), revision, startRevision, true, 0, logEntry -> {
+			List<SVNLogEntryPath> entryPaths = new ArrayList<>();
+			for (SVNLogEntryPath entryPath : logEntry.getChangedPaths().values()) {
+				if (entryPath.getPath().startsWith(branchPath)) {
+					entryPaths.add(new SVNLogEntryPath(entryPath.getPath().substring(branchPath.length()),
+							entryPath.getType(), entryPath.getCopyPath(), entryPath.getCopyRevision(),
+							entryPath.getKind()));
+				}
+			}
+			res.put(logEntry.getRevision(), entryPaths);
+		});
+		return res;
+	}
+
+	private String getRepositoryPath(String path) throws SVNException {
+		SVNRepository repository = vcs.getSessionPool().lease();
+		try {
+			return StringUtils.removeEnd(repository.getRepositoryPath(path), "/");
+		} finally {
+			vcs.getSessionPool().release(repository);
+		}
+	}
+
+	/**
+	 * Returns the latest change of each path made within the range, keyed by path relative to the branch root, ordered
+	 * by path.
+	 */
+	private Map<String, SVNLogEntryPath> getRangeChanges(NavigableMap<Long, List<SVNLogEntryPath>> changes,
+			long[] range) {
+		Map<String, SVNLogEntryPath> res = new TreeMap<>();
+		for (List<SVNLogEntryPath> entryPaths : changes.subMap(range[0], true, range[1], true).values()) {
+			for (SVNLogEntryPath entryPath : entryPaths) {
+				res.put(entryPath.getPath(), entryPath);
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Applies the change of the range to the merged destination content, returns false on conflict.
+	 */
+	private boolean applyChange(String filePath, SVNLogEntryPath change, long[] range)
+			throws SVNException, IOException {
+		if (change.getKind() == SVNNodeKind.DIR) {
+			return true;
+		}
+		byte[] theirs;
+		byte[] base;
+		byte[] mine;
+		try {
+			theirs = change.getType() == SVNLogEntryPath.TYPE_DELETED ? null
+					: vcs.readFileContent(srcBranchName, filePath, range[1]);
+			base = vcs.readFileContent(srcBranchName, filePath, range[0] - 1);
+			if (base == null) {
+				// the range starts with the branch creation
+				base = vcs.readFileContent(dstBranchName, filePath, range[0] - 1);
+			}
+			mine = merged.containsKey(filePath) ? merged.get(filePath)
+					: vcs.readFileContent(dstBranchName, filePath, revision);
+		} catch (SVNException e) {
+			if (e.getErrorMessage().getErrorCode() == SVNErrorCode.FS_NOT_FILE) {
+				return true;
+			}
+			throw e;
+		}
+		if (Arrays.equals(mine, theirs)) {
+			return true;
+		}
+		if (Arrays.equals(mine, base)) {
+			merged.put(filePath, theirs);
+			return true;
+		}
+		if (mine == null || theirs == null || base == null) {
+			// removed by one side and changed by the other one or added by both with different contents
+			return false;
+		}
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		FSMergerBySequence merger = new FSMergerBySequence(CONFLICT_START, CONFLICT_SEPARATOR, CONFLICT_END);
+		if (merger.merge(new QSequenceLineRAByteData(base), new QSequenceLineRAByteData(mine),
+				new QSequenceLineRAByteData(theirs), new SVNDiffOptions(), result,
+				SVNDiffConflictChoiceStyle.CHOOSE_MODIFIED_LATEST) == FSMergerBySequence.CONFLICTED) {
+			return false;
+		}
+		merged.put(filePath, result.toByteArray());
+		return true;
+	}
+}
@@ -0,0 +1,80 @@
+package org.scm4j.vcs.svn;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics of a top level {@link SVNVCS} call in progress. The operation is bound to the calling thread, worker threads
+ * may attach to it. Nested calls and calls made while no listener is set share {@link #NONE} which records nothing.
+ */
+class SVNOperation {
+
+	static final SVNOperation NONE = new SVNOperation(ISVNMetricsListener.NO_OP, null);
+
+	private static final ThreadLocal<SVNOperation> CURRENT = new ThreadLocal<>();
+
+	private final ISVNMetricsListener listener;
+	private final String name;
+	private final long startedAt;
+	private final AtomicInteger repositoryCalls = new AtomicInteger();
+	private final AtomicLong bytes = new AtomicLong();
+
+	private SVNOperation(ISVNMetricsListener listener, String name) {
+		this.listener = listener;
+		this.name = name;
+		startedAt = System.nanoTime();
+	}
+
+	static SVNOperation start(ISVNMetricsListener listener, String name) {
+		if (listener == ISVNMetricsListener.NO_OP || CURRENT.get() != null) {
+			return NONE;
+		}
+		SVNOperation res = new SVNOperation(listener, name);
+		CURRENT.set(res);
+		return res;
+	}
+
+	static SVNOperation current() {
+		SVNOperation res = CURRENT.get();
+		return res == null ? NONE : res;
+	}
+
+	/**
+	 * Counts a call to a repository session or client, to be made right before the call.
+	 */
+	static void repositoryCall() {
+		SVNOperation operation = CURRENT.get();
+		if (operation != null) {
+			operation.repositoryCalls.incrementAndGet();
+		}
+	}
+
+	static void bytes(long count) {
+		SVNOperation operation = CURRENT.get();
+		if (operation != null) {
+			operation.bytes.addAndGet(count);
+		}
+	}
+
+	/**
+	 * Makes repository calls and bytes of the current thread counted by this operation until {@link #detach()}.
+	 */
+	void attach() {
+		if (this != NONE) {
+			CURRENT.set(this);
+		}
+	}
+
+	void detach() {
+		if (this != NONE) {
+			CURRENT.remove();
+		}
+	}
+
+	void end() {
+		if (this != NONE) {
+			CURRENT.remove();
+			listener.operationCompleted(name, System.nanoTime() - startedAt, repositoryCalls.get(), bytes.get());
+		}
+	}
+}
@@ -0,0 +1,235 @@
+package org.scm4j.vcs.svn;
+
+import org.apache.commons.lang3.StringUtils;
+import org.scm4j.vcs.api.VCSChangeListNode;
+import org.scm4j.vcs.api.VCSCommit;
+import org.scm4j.vcs.api.exceptions.EVCSBranchNotFound;
+import org.tmatesoft.svn.core.*;
+import org.tmatesoft.svn.core.internal.util.SVNPathUtil;
+import org.tmatesoft.svn.core.io.ISVNEditor;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.diff.SVNDeltaGenerator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Commits a change list directly through a repository commit editor, no working copy is used. Changed files are sent
+ * as deltas against their base revision content, missing parent dirs are added within the same commit. Any number of
+ * copies, e.g. tags or branches, may be committed at once the same way.
+ */
+class SVNRemoteCommit {
+
+	private static final Comparator<String> DEPTH_FIRST_ORDER = Comparator.comparing(path -> path.replace('/', '\0'));
+
+	private final SVNRepository repository;
+	private final long baseRevision;
+	private final Map<String, SVNNodeKind> nodeKinds = new HashMap<>();
+	private final Set<String> listedDirs = new HashSet<>();
+	private final Deque<String> openedDirs = new ArrayDeque<>();
+
+	SVNRemoteCommit(SVNRepository repository) throws SVNException {
+		this.repository = repository;
+		SVNOperation.repositoryCall();
+		baseRevision = repository.getLatestRevision();
+	}
+
+	/**
+	 * Commits the change list to the branch. Branch name is the branch path relative to the repository location.
+	 */
+	VCSCommit commit(String repoUrl, String branchName, List<VCSChangeListNode> vcsChangeList, String commitMessage)
+			throws SVNException {
+		String branchPath = StringUtils.removeEnd(branchName, "/");
+		SVNOperation.repositoryCall();
+		if (repository.checkPath(branchPath, baseRevision) != SVNNodeKind.DIR) {
+			throw new EVCSBranchNotFound(repoUrl, branchName);
+		}
+		for (String path = branchPath; !path.isEmpty(); path = SVNPathUtil.removeTail(path)) {
+			nodeKinds.put(path, SVNNodeKind.DIR);
+		}
+		nodeKinds.put("", SVNNodeKind.DIR);
+		Map<String, byte[]> contents = new TreeMap<>(DEPTH_FIRST_ORDER);
+		for (VCSChangeListNode vcsChangeListNode : vcsChangeList) {
+			contents.put(SVNPathUtil.append(branchPath,
+					StringUtils.removeStart(vcsChangeListNode.getFilePath().replace("\\", "/"), "/")),
+					vcsChangeListNode.getContent().getBytes(StandardCharsets.UTF_8));
+		}
+		Map<String, byte[]> baseContents = new HashMap<>();
+		Map<String, String> baseChecksums = new HashMap<>();
+		for (Iterator<Map.Entry<String, byte[]>> it = contents.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<String, byte[]> content = it.next();
+			SVNNodeKind nodeKind = getNodeKind(content.getKey());
+			if (nodeKind == SVNNodeKind.FILE) {
+				ByteArrayOutputStream baos = new ByteArrayOutputStream();
+				SVNProperties properties = new SVNProperties();
+				SVNOperation.repositoryCall();
+				repository.getFile(content.getKey(), baseRevision, properties, baos);
+				if (Arrays.equals(baos.toByteArray(), content.getValue())) {
+					it.remove();
+				} else {
+					baseContents.put(content.getKey(), baos.toByteArray());
+					baseChecksums.put(content.getKey(), properties.getStringValue(SVNProperty.CHECKSUM));
+				}
+			} else if (nodeKind != SVNNodeKind.NONE) {
+				throw new SVNException(SVNErrorMessage.create(SVNErrorCode.FS_NOT_FILE, "''{0}'' is not a file",
+						content.getKey()));
+			}
+		}
+		if (contents.isEmpty()) {
+			return VCSCommit.EMPTY;
+		}
+
+		SVNOperation.repositoryCall();
+		ISVNEditor editor = repository.getCommitEditor(commitMessage, null, false, null);
+		try {
+			editor.openRoot(baseRevision);
+			openedDirs.push("");
+			SVNDeltaGenerator deltaGenerator = new SVNDeltaGenerator();
+			for (Map.Entry<String, byte[]> content : contents.entrySet()) {
+				String filePath = content.getKey();
+				openDir(editor, SVNPathUtil.removeTail(filePath));
+				byte[] baseContent = baseContents.get(filePath);
+				String checksum;
+				if (baseContent == null) {
+					editor.addFile(filePath, null, -1);
+					editor.applyTextDelta(filePath, null);
+					checksum = deltaGenerator.sendDelta(filePath, new ByteArrayInputStream(content.getValue()), editor, true);
+				} else {
+					editor.openFile(filePath, baseRevision);
+					editor.applyTextDelta(filePath, baseChecksums.get(filePath));
+					checksum = deltaGenerator.sendDelta(filePath, new ByteArrayInputStream(baseContent), 0,
+							new ByteArrayInputStream(content.getValue()), editor, true);
+				}
+				editor.closeFile(filePath, checksum);
+				SVNOperation.bytes(content.getValue().length);
+			}
+			while (!openedDirs.isEmpty()) {
+				openedDirs.pop();
+				editor.closeDir();
+			}
+			SVNCommitInfo commitInfo = editor.closeEdit();
+			return new VCSCommit(Long.toString(commitInfo.getNewRevision()), commitMessage, commitInfo.getAuthor());
+		} catch (SVNException e) {
+			editor.abortEdit();
+			throw e;
+		}
+	}
+
+	long getBaseRevision() {
+		return baseRevision;
+	}
+
+	/**
+	 * Copies dirs in a single commit. Nothing is committed if any destination exists already or, unless makeParents is
+	 * set, if a destination parent dir does not exist. Children of the destination parent dirs are listed once per dir
+	 * instead of checking each destination.
+	 */
+	SVNCommitInfo copy(Collection<Copy> copies, boolean makeParents, String commitMessage) throws SVNException {
+		Map<String, Copy> destinations = new TreeMap<>(DEPTH_FIRST_ORDER);
+		for (Copy copy : copies) {
+			String path = StringUtils.removeEnd(StringUtils.removeStart(copy.dstPath, "/"), "/");
+			String parentPath = SVNPathUtil.removeTail(path);
+			if (!makeParents && getNodeKind(parentPath) != SVNNodeKind.DIR) {
+				throw new SVNException(SVNErrorMessage.create(SVNErrorCode.FS_NOT_FOUND, "Path ''{0}'' not found",
+						parentPath));
+			}
+			listChildren(parentPath);
+			if (getNodeKind(path) != SVNNodeKind.NONE || destinations.put(path, copy) != null) {
+				throw new SVNException(SVNErrorMessage.create(SVNErrorCode.FS_ALREADY_EXISTS,
+						"Path ''{0}'' already exists", path));
+			}
+		}
+
+		SVNOperation.repositoryCall();
+		ISVNEditor editor = repository.getCommitEditor(commitMessage, null, false, null);
+		try {
+			editor.openRoot(baseRevision);
+			openedDirs.push("");
+			for (Map.Entry<String, Copy> destination : destinations.entrySet()) {
+				openDir(editor, SVNPathUtil.removeTail(destination.getKey()));
+				editor.addDir(destination.getKey(), repository.getRepositoryPath(destination.getValue().srcPath),
+						destination.getValue().revision);
+				editor.closeDir();
+				nodeKinds.put(destination.getKey(), SVNNodeKind.DIR);
+			}
+			while (!openedDirs.isEmpty()) {
+				openedDirs.pop();
+				editor.closeDir();
+			}
+			return editor.closeEdit();
+		} catch (SVNException e) {
+			editor.abortEdit();
+			throw e;
+		}
+	}
+
+	private void listChildren(String dirPath) throws SVNException {
+		if (listedDirs.contains(dirPath) || getNodeKind(dirPath) != SVNNodeKind.DIR) {
+			return;
+		}
+		List<SVNDirEntry> entries = new ArrayList<>();
+		SVNOperation.repositoryCall();
+		repository.getDir(dirPath, baseRevision, null, SVNDirEntry.DIRENT_KIND, entries);
+		for (SVNDirEntry entry : entries) {
+			nodeKinds.put(SVNPathUtil.append(dirPath, entry.getName()), entry.getKind());
+		}
+		listedDirs.add(dirPath);
+	}
+
+	private void openDir(ISVNEditor editor, String dirPath) throws SVNException {
+		while (!isAncestor(openedDirs.peek(), dirPath)) {
+			openedDirs.pop();
+			editor.closeDir();
+		}
+		String openedDir = openedDirs.peek();
+		if (openedDir.equals(dirPath)) {
+			return;
+		}
+		String rest = openedDir.isEmpty() ? dirPath : dirPath.substring(openedDir.length() + 1);
+		for (String name : rest.split("/")) {
+			String path = SVNPathUtil.append(openedDirs.peek(), name);
+			if (getNodeKind(path) == SVNNodeKind.NONE) {
+				editor.addDir(path, null, -1);
+			} else {
+				editor.openDir(path, baseRevision);
+			}
+			openedDirs.push(path);
+		}
+	}
+
+	private boolean isAncestor(String ancestor, String path) {
+		return ancestor.isEmpty() || path.equals(ancestor) || path.startsWith(ancestor + "/");
+	}
+
+	/**
+	 * Dir copy: source path and revision, destination path. Paths are relative to the repository location.
+	 */
+	static class Copy {
+		final String srcPath;
+		final long revision;
+		final String dstPath;
+
+		Copy(String srcPath, long revision, String dstPath) {
+			this.srcPath = srcPath;
+			this.revision = revision;
+			this.dstPath = dstPath;
+		}
+	}
+
+	private SVNNodeKind getNodeKind(String path) throws SVNException {
+		SVNNodeKind res = nodeKinds.get(path);
+		if (res == null) {
+			if (!path.isEmpty() && (getNodeKind(SVNPathUtil.removeTail(path)) != SVNNodeKind.DIR
+					|| listedDirs.contains(SVNPathUtil.removeTail(path)))) {
+				res = SVNNodeKind.NONE;
+			} else {
+				SVNOperation.repositoryCall();
+				res = repository.checkPath(path, baseRevision);
+			}
+			nodeKinds.put(path, res);
+		}
+		return res;
+	}
+}
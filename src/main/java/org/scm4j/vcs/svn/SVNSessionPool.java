@@ -0,0 +1,221 @@
+package org.scm4j.vcs.svn;
+
+import org.scm4j.vcs.api.exceptions.EVCSException;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+
+import java.util.*;
+
+/**
+ * Bounded pool of repository sessions opened to the same url. The primary session is leased first, extra sessions are
+ * opened on demand with the url and the authentication manager of the primary one. Nested leases made by the same
+ * thread reuse the session already leased by that thread. An extra session idle for longer than the health check
+ * interval is checked by a round trip before reuse, sessions idle for longer than the idle timeout are closed.
+ */
+class SVNSessionPool {
+
+	static final long HEALTH_CHECK_INTERVAL = 10000;
+
+	private final ThreadLocal<Lease> leases = new ThreadLocal<>();
+	private final Deque<IdleSession> idleSessions = new ArrayDeque<>();
+	private final Set<SVNRepository> extraSessions = new HashSet<>();
+	private SVNRepository primary;
+	private boolean primaryLeased;
+	private int openingSessions;
+	private int maxSessions;
+	private long idleTimeout;
+
+	SVNSessionPool(SVNRepository primary, int maxSessions, long idleTimeout) {
+		this.primary = primary;
+		this.maxSessions = maxSessions;
+		this.idleTimeout = idleTimeout;
+	}
+
+	synchronized SVNRepository getPrimary() {
+		return primary;
+	}
+
+	void setPrimary(SVNRepository primary) {
+		List<SVNRepository> toClose;
+		synchronized (this) {
+			this.primary = primary;
+			primaryLeased = false;
+			toClose = new ArrayList<>();
+			for (IdleSession idleSession : idleSessions) {
+				toClose.add(idleSession.session);
+			}
+			idleSessions.clear();
+			// sessions leased at the moment are closed on release
+			extraSessions.clear();
+			notifyAll();
+		}
+		closeSessions(toClose);
+	}
+
+	synchronized int getMaxSessions() {
+		return maxSessions;
+	}
+
+	synchronized void setMaxSessions(int maxSessions) {
+		this.maxSessions = Math.max(1, maxSessions);
+		notifyAll();
+	}
+
+	synchronized long getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	synchronized void setIdleTimeout(long idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	SVNRepository lease() {
+		Lease lease = leases.get();
+		if (lease == null) {
+			lease = new Lease(take());
+			leases.set(lease);
+		}
+		lease.count++;
+		return lease.session;
+	}
+
+	void release(SVNRepository session) {
+		Lease lease = leases.get();
+		if (lease == null || lease.session != session) {
+			throw new IllegalStateException("session is not leased by current thread");
+		}
+		if (--lease.count == 0) {
+			leases.remove();
+			give(session);
+		}
+	}
+
+	private SVNRepository take() {
+		IdleSession idleSession = null;
+		SVNRepository source = null;
+		List<SVNRepository> evicted;
+		synchronized (this) {
+			evicted = evictIdleSessions();
+			while (true) {
+				if (!primaryLeased) {
+					primaryLeased = true;
+					break;
+				}
+				idleSession = idleSessions.pollFirst();
+				if (idleSession != null) {
+					break;
+				}
+				if (extraSessions.size() + openingSessions < maxSessions - 1) {
+					openingSessions++;
+					source = primary;
+					break;
+				}
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					closeSessions(evicted);
+					throw new RuntimeException(e);
+				}
+			}
+		}
+		closeSessions(evicted);
+		if (idleSession != null) {
+			return check(idleSession);
+		}
+		return source == null ? getPrimary() : open(source);
+	}
+
+	private SVNRepository check(IdleSession idleSession) {
+		if (System.currentTimeMillis() - idleSession.releasedAt < HEALTH_CHECK_INTERVAL) {
+			return idleSession.session;
+		}
+		try {
+			idleSession.session.testConnection();
+			return idleSession.session;
+		} catch (SVNException e) {
+			idleSession.session.closeSession();
+		}
+		SVNRepository source;
+		synchronized (this) {
+			extraSessions.remove(idleSession.session);
+			openingSessions++;
+			source = primary;
+		}
+		return open(source);
+	}
+
+	private SVNRepository open(SVNRepository source) {
+		SVNRepository res = null;
+		try {
+			res = SVNRepositoryFactory.create(source.getLocation());
+			res.setAuthenticationManager(source.getAuthenticationManager());
+			return res;
+		} catch (SVNException e) {
+			throw new EVCSException(e);
+		} finally {
+			synchronized (this) {
+				openingSessions--;
+				if (res != null) {
+					extraSessions.add(res);
+				}
+				notifyAll();
+			}
+		}
+	}
+
+	private void give(SVNRepository session) {
+		boolean close = false;
+		synchronized (this) {
+			if (session == primary) {
+				primaryLeased = false;
+			} else if (extraSessions.contains(session)) {
+				idleSessions.addFirst(new IdleSession(session));
+			} else {
+				// leased before the primary session was replaced
+				close = true;
+			}
+			notifyAll();
+		}
+		if (close) {
+			session.closeSession();
+		}
+	}
+
+	private List<SVNRepository> evictIdleSessions() {
+		List<SVNRepository> res = new ArrayList<>();
+		long now = System.currentTimeMillis();
+		// most recently released sessions are at the head
+		while (!idleSessions.isEmpty() && now - idleSessions.peekLast().releasedAt > idleTimeout) {
+			SVNRepository session = idleSessions.pollLast().session;
+			extraSessions.remove(session);
+			res.add(session);
+		}
+		return res;
+	}
+
+	private void closeSessions(Collection<SVNRepository> sessions) {
+		for (SVNRepository session : sessions) {
+			session.closeSession();
+		}
+	}
+
+	private static class Lease {
+		final SVNRepository session;
+		int count;
+
+		Lease(SVNRepository session) {
+			this.session = session;
+		}
+	}
+
+	private static class IdleSession {
+		final SVNRepository session;
+		final long releasedAt = System.currentTimeMillis();
+
+		IdleSession(SVNRepository session) {
+			this.session = session;
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package org.scm4j.vcs.svn;
+
+import org.scm4j.vcs.api.VCSCommit;
+import org.scm4j.vcs.api.VCSTag;
+import org.scm4j.vcs.api.exceptions.EVCSException;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNLogEntry;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Read-only view of the repository at one revision. Results never change for the revision, so each of them is
+ * requested once and shared by all threads using the snapshot, concurrent requests of the same result are coalesced.
+ * At most {@link #MAX_RESULTS} least recently used results are kept. Returned collections are unmodifiable.
+ */
+public class SVNSnapshot {
+
+	public static final int MAX_RESULTS = 1024;
+
+	private final SVNVCS vcs;
+	private final long revision;
+	private final Map<List<Object>, FutureTask<Object>> results =
+			new LinkedHashMap<List<Object>, FutureTask<Object>>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<List<Object>, FutureTask<Object>> eldest) {
+					return size() > MAX_RESULTS;
+				}
+			};
+
+	SVNSnapshot(SVNVCS vcs, long revision) {
+		this.vcs = vcs;
+		this.revision = revision;
+	}
+
+	public String getRevision() {
+		return Long.toString(revision);
+	}
+
+	public String getFileContent(String branchName, String filePath) {
+		return memoize(Arrays.asList("getFileContent", branchName, filePath),
+				() -> vcs.getFileContent(branchName, filePath, getRevision()));
+	}
+
+	public Boolean fileExists(String branchName, String filePath) {
+		return memoize(Arrays.asList("fileExists", branchName, filePath),
+				() -> vcs.fileExists(branchName, filePath, revision));
+	}
+
+	public Set<String> getBranches(String path) {
+		return memoize(Arrays.asList("getBranches", path == null ? "" : path),
+				() -> vcs.listBranches(path, revision));
+	}
+
+	/**
+	 * Returns the last commit of the branch made not later than the snapshot revision or null if the branch does not
+	 * exist at the snapshot revision.
+	 */
+	public VCSCommit getHeadCommit(String branchName) {
+		return memoize(Arrays.asList("getHeadCommit", branchName), () -> {
+			try {
+				SVNLogEntry logEntry = vcs.revToSVNEntry(vcs.getBranchName(branchName), revision);
+				return logEntry == null ? null : vcs.svnLogEntryToVCSCommit(logEntry);
+			} catch (SVNException e) {
+				if (e.getErrorMessage().getErrorCode().getCode() == SVNVCS.SVN_FILE_NOT_FOUND_ERROR_CODE) {
+					return null;
+				}
+				throw e;
+			}
+		});
+	}
+
+	public List<VCSCommit> log(String branchName, int limit) {
+		return memoize(Arrays.asList("log", branchName, limit), () -> {
+			List<VCSCommit> res = new ArrayList<>();
+			vcs.readLog(vcs.getBranchName(branchName), revision, 0, false, limit,
+					logEntry -> res.add(vcs.svnLogEntryToVCSCommit(logEntry)));
+			return Collections.unmodifiableList(res);
+		});
+	}
+
+	public List<VCSTag> getTags() {
+		return memoize(Collections.singletonList("getTags"),
+				() -> Collections.unmodifiableList(vcs.getTags(new SVNTagIndex(), revision)));
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T memoize(List<Object> key, Callable<T> loader) {
+		FutureTask<Object> task = new FutureTask<>(loader::call);
+		FutureTask<Object> existing;
+		synchronized (results) {
+			existing = results.get(key);
+			if (existing == null) {
+				results.put(key, task);
+			}
+		}
+		if (existing == null) {
+			existing = task;
+			task.run();
+		}
+		try {
+			return (T) existing.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			// failures are not memoized
+			synchronized (results) {
+				if (results.get(key) == existing) {
+					results.remove(key);
+				}
+			}
+			Throwable cause = e.getCause();
+			if (cause instanceof SVNException) {
+				throw new EVCSException((SVNException) cause);
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new RuntimeException(cause);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "SVNSnapshot [revision=" + revision + ", vcs=" + vcs + "]";
+	}
+}
@@ -0,0 +1,173 @@
+package org.scm4j.vcs.svn;
+
+import org.scm4j.vcs.api.VCSCommit;
+import org.scm4j.vcs.api.VCSTag;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNLogEntry;
+import org.tmatesoft.svn.core.SVNLogEntryPath;
+import org.tmatesoft.svn.core.SVNProperties;
+import org.tmatesoft.svn.core.SVNRevisionProperty;
+import org.tmatesoft.svn.core.io.SVNRepository;
+
+import java.util.*;
+
+/**
+ * In-memory index of tags/ built from the log of tags/ dir. Each update requests only revisions committed after the
+ * last indexed one. If tags/ dir is copied from another path, its history is followed to the copy source, so tags
+ * which come with the copy are indexed too.
+ */
+class SVNTagIndex {
+
+	private final Map<String, IndexedTag> tags = new TreeMap<>();
+	private final Map<Long, VCSCommit> copyFromCommits = new HashMap<>();
+	private long indexedRevision = 0;
+
+	synchronized List<VCSTag> getTags(SVNRepository repository, Long onRevision, long latestRevision)
+			throws SVNException {
+		update(repository, latestRevision);
+		List<IndexedTag> found = new ArrayList<>();
+		for (IndexedTag tag : tags.values()) {
+			if (onRevision == null || tag.copyFromRevision == onRevision) {
+				found.add(tag);
+			}
+		}
+		loadCopyFromCommits(repository, found);
+		List<VCSTag> res = new ArrayList<>();
+		for (IndexedTag tag : found) {
+			res.add(new VCSTag(tag.name, tag.message, tag.author, getCopyFromCommit(repository, tag.copyFromRevision)));
+		}
+		return res;
+	}
+
+	synchronized void reset() {
+		tags.clear();
+		copyFromCommits.clear();
+		indexedRevision = 0;
+	}
+
+	private void update(SVNRepository repository, long latestRevision) throws SVNException {
+		if (latestRevision <= indexedRevision) {
+			return;
+		}
+		final List<SVNLogEntry> logEntries = new ArrayList<>();
+		try {
+			SVNOperation.repositoryCall();
+			repository.log(new String[] { SVNVCS.TAGS_PATH }, indexedRevision + 1, latestRevision, true, false, 0,
+					logEntries::add);
+		} catch (SVNException e) {
+			// tags/ dir does not exist at latest revision
+			reset();
+			throw e;
+		}
+		// path of tags/ dir at each revision, older revisions of a copied dir are logged by the copy source path
+		String[] paths = new String[logEntries.size()];
+		String path = getTagsRepositoryPath(repository);
+		boolean copied = false;
+		for (int i = logEntries.size() - 1; i >= 0; i--) {
+			paths[i] = path;
+			SVNLogEntryPath entryPath = logEntries.get(i).getChangedPaths().get(path);
+			if (entryPath != null && entryPath.getCopyPath() != null) {
+				path = entryPath.getCopyPath();
+				copied = true;
+			}
+		}
+		if (copied && indexedRevision > 0) {
+			// indexed tags are not the ones of the copy source
+			reset();
+			update(repository, latestRevision);
+			return;
+		}
+		for (int i = 0; i < logEntries.size(); i++) {
+			indexLogEntry(paths[i], logEntries.get(i));
+		}
+		indexedRevision = latestRevision;
+	}
+
+	private void indexLogEntry(String tagsPath, SVNLogEntry logEntry) {
+		for (SVNLogEntryPath entryPath : logEntry.getChangedPaths().values()) {
+			String path = entryPath.getPath();
+			if (path.equals(tagsPath)) {
+				if (entryPath.getType() == SVNLogEntryPath.TYPE_DELETED || (entryPath.getCopyPath() == null
+						&& (entryPath.getType() == SVNLogEntryPath.TYPE_ADDED
+						|| entryPath.getType() == SVNLogEntryPath.TYPE_REPLACED))) {
+					tags.clear();
+				}
+				continue;
+			}
+			if (!path.startsWith(tagsPath + "/") || path.indexOf('/', tagsPath.length() + 1) >= 0) {
+				continue;
+			}
+			String tagName = path.substring(tagsPath.length() + 1);
+			switch (entryPath.getType()) {
+			case SVNLogEntryPath.TYPE_ADDED:
+			case SVNLogEntryPath.TYPE_REPLACED:
+				tags.put(tagName, new IndexedTag(tagName, logEntry.getMessage(), logEntry.getAuthor(),
+						entryPath.getCopyRevision() < 0 ? logEntry.getRevision() : entryPath.getCopyRevision()));
+				break;
+			case SVNLogEntryPath.TYPE_DELETED:
+				tags.remove(tagName);
+				break;
+			default:
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Reads not yet known copy-from commits of the tags by a single log request over the range of their revisions.
+	 */
+	private void loadCopyFromCommits(SVNRepository repository, List<IndexedTag> tags) throws SVNException {
+		final Set<Long> revisions = new HashSet<>();
+		for (IndexedTag tag : tags) {
+			if (!copyFromCommits.containsKey(tag.copyFromRevision)) {
+				revisions.add(tag.copyFromRevision);
+			}
+		}
+		if (revisions.size() < 2) {
+			return;
+		}
+		SVNOperation.repositoryCall();
+		repository.log(new String[] { "" }, Collections.min(revisions), Collections.max(revisions), false, false, 0,
+				logEntry -> {
+					if (revisions.contains(logEntry.getRevision())) {
+						copyFromCommits.put(logEntry.getRevision(), new VCSCommit(Long.toString(logEntry.getRevision()),
+								logEntry.getMessage(), logEntry.getAuthor()));
+					}
+				});
+	}
+
+	/**
+	 * Returns the copy-from commit, reads revision properties if the commit is not loaded yet, e.g. if the revision
+	 * does not change the repository location path.
+	 */
+	private VCSCommit getCopyFromCommit(SVNRepository repository, long revision) throws SVNException {
+		VCSCommit res = copyFromCommits.get(revision);
+		if (res == null) {
+			SVNOperation.repositoryCall();
+			SVNProperties props = repository.getRevisionProperties(revision, null);
+			res = new VCSCommit(Long.toString(revision), props.getStringValue(SVNRevisionProperty.LOG),
+					props.getStringValue(SVNRevisionProperty.AUTHOR));
+			copyFromCommits.put(revision, res);
+		}
+		return res;
+	}
+
+	private String getTagsRepositoryPath(SVNRepository repository) throws SVNException {
+		String res = repository.getRepositoryPath(SVNVCS.TAGS_PATH);
+		return res.endsWith("/") ? res.substring(0, res.length() - 1) : res;
+	}
+
+	private static class IndexedTag {
+		final String name;
+		final String message;
+		final String author;
+		final long copyFromRevision;
+
+		IndexedTag(String name, String message, String author, long copyFromRevision) {
+			this.name = name;
+			this.message = message;
+			this.author = author;
+			this.copyFromRevision = copyFromRevision;
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package org.scm4j.vcs.svn;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.scm4j.vcs.api.*;
 import org.scm4j.vcs.api.exceptions.*;
@@ -10,46 +11,91 @@ import org.tmatesoft.svn.core.*;
 import org.tmatesoft.svn.core.auth.BasicAuthenticationManager;
 import org.tmatesoft.svn.core.auth.SVNAuthentication;
 import org.tmatesoft.svn.core.auth.SVNPasswordAuthentication;
+import org.tmatesoft.svn.core.internal.util.SVNPathUtil;
 import org.tmatesoft.svn.core.internal.wc.DefaultSVNOptions;
+import org.tmatesoft.svn.core.internal.wc.SVNErrorManager;
+import org.tmatesoft.svn.core.io.SVNLocationSegment;
 import org.tmatesoft.svn.core.io.SVNRepository;
 import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
 import org.tmatesoft.svn.core.wc.*;
-import org.tmatesoft.svn.core.wc2.SvnDiff;
-import org.tmatesoft.svn.core.wc2.SvnDiffSummarize;
-import org.tmatesoft.svn.core.wc2.SvnOperationFactory;
-import org.tmatesoft.svn.core.wc2.SvnTarget;
+import org.tmatesoft.svn.util.SVNLogType;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class SVNVCS implements IVCS {
 	private static final int SVN_PATH_IS_NOT_WORKING_COPY_ERROR_CODE = 155007;
 	private static final int SVN_ITEM_EXISTS_ERROR_CODE = 160020;
-	private static final int SVN_FILE_NOT_FOUND_ERROR_CODE = 160013;
+	static final int SVN_FILE_NOT_FOUND_ERROR_CODE = 160013;
 
 	public static final String MASTER_PATH= "trunk/";
 	public static final String BRANCHES_PATH = "branches/";
 	public static final String TAGS_PATH = "tags/";
 	public static final String SVN_VCS_TYPE_STRING = "svn";
+	public static final int DEFAULT_DIFF_THREADS_COUNT = 4;
+	public static final int DEFAULT_READ_THREADS_COUNT = 4;
+	public static final int DEFAULT_MAX_WORKER_THREADS = 16;
+	public static final int DEFAULT_MAX_SESSIONS = 8;
+	public static final long DEFAULT_SESSION_IDLE_TIMEOUT = 60000;
+	public static final int DEFAULT_LOG_CHUNK_SIZE = 500;
+	public static final int DEFAULT_MAX_WARM_WORKING_COPIES = 4;
+	public static final int DEFAULT_MAX_DELETES_PER_COMMIT = 1000;
+	private static final int SHARED_SNAPSHOTS_COUNT = 4;
 
 	private BasicAuthenticationManager authManager;
-	private SVNRepository repository;
+	private final SVNSessionPool sessionPool;
 	private final ISVNOptions options;
-	private SVNClientManager clientManager;
+	private final SVNClientManagerPool clientManagers;
 	private SVNURL trunkSVNUrl;
 	private SVNAuthentication userPassAuth;
 	private IVCSRepositoryWorkspace repo;
 	private String repoUrl;
+	private final SVNTagIndex tagIndex = new SVNTagIndex();
+	private final SVNListingCache<Set<String>> branchesCache = new SVNListingCache<>();
+	private final Map<Long, SVNSnapshot> snapshots = new LinkedHashMap<Long, SVNSnapshot>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, SVNSnapshot> eldest) {
+			return size() > SHARED_SNAPSHOTS_COUNT;
+		}
+	};
+	private final Map<String, DirFirstCommit> dirFirstCommits = new ConcurrentHashMap<>();
+	private int diffThreadsCount = DEFAULT_DIFF_THREADS_COUNT;
+	private int readThreadsCount = DEFAULT_READ_THREADS_COUNT;
+	private final SVNWorkers workers = new SVNWorkers(DEFAULT_MAX_WORKER_THREADS);
+	private int maxDeletesPerCommit = DEFAULT_MAX_DELETES_PER_COMMIT;
+	private boolean useWorkingCopyForCommits = true;
+	private boolean sparseWorkingCopies;
+	private boolean mergeEligibleRevisionsOnly;
+	private final SVNWorkingCopyPool workingCopyPool = new SVNWorkingCopyPool();
+	private long warmWorkingCopiesUpdateInterval;
+	private boolean exportCheckouts;
+	private boolean exportExternals = true;
+	private final SVNFileContentCache fileContentCache = new SVNFileContentCache();
+	private volatile ISVNMetricsListener metricsListener = ISVNMetricsListener.NO_OP;
+	private File commitIndexDir;
+	private SVNCommitIndex commitIndex;
 
 	public void setClientManager(SVNClientManager clientManager) {
-		this.clientManager = clientManager;
+		clientManagers.setPrimary(clientManager);
 	}
 
 	public SVNClientManager getClientManager() {
-		return clientManager;
+		return clientManagers.getPrimary();
 	}
 	
 	public ISVNOptions getOptions() {
@@ -61,16 +107,266 @@ public class SVNVCS implements IVCS {
 	}
 
 	public SVNRepository getSVNRepository() {
-		return repository;
+		return sessionPool.getPrimary();
 	}
 
 	public void setSVNRepository(SVNRepository repository) {
-		this.repository = repository;
+		sessionPool.setPrimary(repository);
+		tagIndex.reset();
+		branchesCache.clear();
+		synchronized (snapshots) {
+			snapshots.clear();
+		}
+		dirFirstCommits.clear();
+		fileContentCache.clear();
+		synchronized (this) {
+			commitIndex = null;
+		}
 	}
 
 	public void setRepo(IVCSRepositoryWorkspace repo) {
 		this.repo = repo;
 	}
+
+	public int getDiffThreadsCount() {
+		return diffThreadsCount;
+	}
+
+	public void setDiffThreadsCount(int diffThreadsCount) {
+		this.diffThreadsCount = diffThreadsCount;
+	}
+
+	public int getReadThreadsCount() {
+		return readThreadsCount;
+	}
+
+	public void setReadThreadsCount(int readThreadsCount) {
+		this.readThreadsCount = readThreadsCount;
+	}
+
+	public int getMaxWorkerThreads() {
+		return workers.getMaxThreads();
+	}
+
+	/**
+	 * Sets max count of worker threads shared by all parallel calls of this instance. Each call uses at most
+	 * {@link #getDiffThreadsCount()} or {@link #getReadThreadsCount()} of them, calls made when all workers are busy are
+	 * run by the calling thread.
+	 */
+	public void setMaxWorkerThreads(int maxWorkerThreads) {
+		workers.setMaxThreads(maxWorkerThreads);
+	}
+
+	SVNWorkers getWorkers() {
+		return workers;
+	}
+
+	SVNSessionPool getSessionPool() {
+		return sessionPool;
+	}
+
+	public int getMaxDeletesPerCommit() {
+		return maxDeletesPerCommit;
+	}
+
+	/**
+	 * Sets max count of paths removed by a single commit of the batch remove methods, larger sets are split into
+	 * several commits.
+	 */
+	public void setMaxDeletesPerCommit(int maxDeletesPerCommit) {
+		this.maxDeletesPerCommit = maxDeletesPerCommit;
+	}
+
+	public int getMaxSessions() {
+		return sessionPool.getMaxSessions();
+	}
+
+	/**
+	 * Sets max count of repository sessions used concurrently, including the one returned by
+	 * {@link #getSVNRepository()}. Calls made when all sessions are in use wait for a session to be released.
+	 */
+	public void setMaxSessions(int maxSessions) {
+		sessionPool.setMaxSessions(maxSessions);
+	}
+
+	public long getSessionIdleTimeout() {
+		return sessionPool.getIdleTimeout();
+	}
+
+	/**
+	 * Sets time in milliseconds after which an idle extra repository session is closed.
+	 */
+	public void setSessionIdleTimeout(long idleTimeout) {
+		sessionPool.setIdleTimeout(idleTimeout);
+	}
+
+	public boolean isUseWorkingCopyForCommits() {
+		return useWorkingCopyForCommits;
+	}
+
+	/**
+	 * By default {@link #setFileContent(String, List)} commits through a locked working copy, so auto-props and
+	 * svn:eol-style are applied as by the svn client. Set to false to commit directly to the repository without a
+	 * working copy, contents are committed as is then.
+	 */
+	public void setUseWorkingCopyForCommits(boolean useWorkingCopyForCommits) {
+		this.useWorkingCopyForCommits = useWorkingCopyForCommits;
+	}
+
+	public boolean isSparseWorkingCopies() {
+		return sparseWorkingCopies;
+	}
+
+	/**
+	 * Set to true to make {@link #merge(String, String, String)} and working copy based commits check out only the dirs
+	 * which contain changed files instead of the whole branch tree.
+	 */
+	public void setSparseWorkingCopies(boolean sparseWorkingCopies) {
+		this.sparseWorkingCopies = sparseWorkingCopies;
+	}
+
+	public boolean isMergeEligibleRevisionsOnly() {
+		return mergeEligibleRevisionsOnly;
+	}
+
+	/**
+	 * Set to true to make {@link #merge(String, String, String)} merge only revisions not merged yet according to the
+	 * recorded svn:mergeinfo instead of the whole 1:HEAD range. Working copy is not used at all if there is nothing to
+	 * merge. The whole range is merged if mergeinfo can not be read.
+	 */
+	public void setMergeEligibleRevisionsOnly(boolean mergeEligibleRevisionsOnly) {
+		this.mergeEligibleRevisionsOnly = mergeEligibleRevisionsOnly;
+	}
+
+	public int getWarmWorkingCopiesPerBranch() {
+		return workingCopyPool.getMaxPerBranch();
+	}
+
+	/**
+	 * Sets count of working copies kept locked and switched to each branch after {@link #merge(String, String, String)}
+	 * and working copy based commits, so next operations on the branch need only an update. Zero (default) unlocks
+	 * working copies right after use.
+	 */
+	public void setWarmWorkingCopiesPerBranch(int warmWorkingCopiesPerBranch) {
+		workingCopyPool.setLimits(warmWorkingCopiesPerBranch, getMaxWarmWorkingCopies());
+	}
+
+	public int getMaxWarmWorkingCopies() {
+		return workingCopyPool.getMaxTotal();
+	}
+
+	/**
+	 * Sets max total count of warm working copies, least recently used ones are unlocked first.
+	 */
+	public void setMaxWarmWorkingCopies(int maxWarmWorkingCopies) {
+		workingCopyPool.setLimits(getWarmWorkingCopiesPerBranch(), maxWarmWorkingCopies);
+	}
+
+	public synchronized long getWarmWorkingCopiesUpdateInterval() {
+		return warmWorkingCopiesUpdateInterval;
+	}
+
+	/**
+	 * Sets interval in milliseconds of checking for new revisions and updating idle warm working copies in background.
+	 * Zero (default) disables background updates.
+	 */
+	public synchronized void setWarmWorkingCopiesUpdateInterval(long interval) {
+		warmWorkingCopiesUpdateInterval = interval;
+		final SVNVCS vcs = this;
+		workingCopyPool.setUpdateInterval(interval, new SVNWorkingCopyPool.Updater() {
+			@Override
+			public long getLatestRevision() throws SVNException {
+				return vcs.getLatestRevision();
+			}
+
+			@Override
+			public void update(File folder) throws SVNException {
+				vcs.updateWarmWorkingCopy(folder);
+			}
+		});
+	}
+
+	/**
+	 * Unlocks all idle warm working copies.
+	 */
+	public void releaseWarmWorkingCopies() {
+		workingCopyPool.clear();
+	}
+
+	public boolean isExportCheckouts() {
+		return exportCheckouts;
+	}
+
+	/**
+	 * Set to true to make {@link #checkout(String, String, String)} export the branch instead of checking out a working
+	 * copy, see {@link #export(String, String, String)}.
+	 */
+	public void setExportCheckouts(boolean exportCheckouts) {
+		this.exportCheckouts = exportCheckouts;
+	}
+
+	public boolean isExportExternals() {
+		return exportExternals;
+	}
+
+	/**
+	 * Set to false to make {@link #export(String, String, String)} skip svn:externals definitions.
+	 */
+	public void setExportExternals(boolean exportExternals) {
+		this.exportExternals = exportExternals;
+	}
+
+	public ISVNMetricsListener getMetricsListener() {
+		return metricsListener;
+	}
+
+	/**
+	 * Sets listener of call latencies, repository calls and working copy waits. Null resets it to
+	 * {@link ISVNMetricsListener#NO_OP}.
+	 */
+	public void setMetricsListener(ISVNMetricsListener metricsListener) {
+		this.metricsListener = metricsListener == null ? ISVNMetricsListener.NO_OP : metricsListener;
+	}
+
+	public synchronized File getCommitIndexDir() {
+		return commitIndexDir;
+	}
+
+	/**
+	 * Sets dir of the local index of commits metadata. If set, log, commits range, head commit and branch origin
+	 * queries are answered from the index which is synced with the repository by a single log request per call. Null
+	 * (default) disables the index.
+	 */
+	public synchronized void setCommitIndexDir(File commitIndexDir) {
+		this.commitIndexDir = commitIndexDir;
+		commitIndex = null;
+	}
+
+	public long getListingCacheMaxStaleness() {
+		return branchesCache.getMaxStaleness();
+	}
+
+	/**
+	 * Branch and tag listings are cached until the repository latest revision changes. By default the latest revision
+	 * is requested on each call, set max time in milliseconds the last known one may be used without a request.
+	 */
+	public void setListingCacheMaxStaleness(long maxStaleness) {
+		branchesCache.setMaxStaleness(maxStaleness);
+	}
+
+	public long getFileContentCacheSize() {
+		return fileContentCache.getMaxBytes();
+	}
+
+	/**
+	 * Sets max total size in bytes of file contents cached by {@link #getFileContent(String, String, String)}. Zero
+	 * (default) disables the cache. HEAD requests are resolved to the last changed revision of the branch first, so
+	 * cached content is used until the branch is changed. The resolution is remembered until the repository latest
+	 * revision changes, see {@link #setListingCacheMaxStaleness(long)}.
+	 */
+	public void setFileContentCacheSize(long maxBytes) {
+		fileContentCache.setMaxBytes(maxBytes);
+	}
 	
 	public SVNVCS(IVCSRepositoryWorkspace repo, String user, String password) {
 		this.repo = repo;
@@ -79,6 +375,7 @@ public class SVNVCS implements IVCS {
 			repoUrl += "/";
 		}
         options = SVNWCUtil.createDefaultOptions(true); 
+		SVNRepository repository;
 		try {
 			trunkSVNUrl = SVNURL.parseURIEncoded(repo.getRepoUrl().replace("\\", "/"));
 			repository = SVNRepositoryFactory.create(trunkSVNUrl);
@@ -90,9 +387,13 @@ public class SVNVCS implements IVCS {
 				(password == null ? null : password.toCharArray()), true, trunkSVNUrl, false);
 		authManager = new BasicAuthenticationManager(new SVNAuthentication[] {userPassAuth});
 		repository.setAuthenticationManager(authManager);
+		sessionPool = new SVNSessionPool(repository, DEFAULT_MAX_SESSIONS, DEFAULT_SESSION_IDLE_TIMEOUT);
+		workingCopyPool.setLimits(0, DEFAULT_MAX_WARM_WORKING_COPIES);
 		
-		clientManager = SVNClientManager.newInstance(
-				options, repository.getAuthenticationManager());
+		// extra client managers get own options, merge sets its conflict handler on them
+		clientManagers = new SVNClientManagerPool(SVNClientManager.newInstance(
+				options, repository.getAuthenticationManager()),
+				() -> SVNClientManager.newInstance(SVNWCUtil.createDefaultOptions(true), authManager));
 	}
 	
 	public SVNURL getBranchUrl(String branchPath) throws SVNException {
@@ -101,12 +402,16 @@ public class SVNVCS implements IVCS {
 
 	@Override
 	public void createBranch(String srcBranchName, String dstBranchName, String commitMessage) throws EVCSBranchExists {
+		SVNOperation operation = startOperation("createBranch");
+		SVNClientManager clientManager = clientManagers.lease();
 		try {
 			SVNURL fromUrl = getBranchUrl(srcBranchName);
 			SVNURL toUrl = getBranchUrl(dstBranchName);
+			dirFirstCommits.remove(getBranchName(dstBranchName));
 			SVNCopyClient copyClient = clientManager.getCopyClient();
 			SVNCopySource copySource = new SVNCopySource(SVNRevision.HEAD, SVNRevision.HEAD, fromUrl);
 			copySource.setCopyContents(false);
+			SVNOperation.repositoryCall();
 			copyClient.doCopy(new SVNCopySource[] { copySource }, toUrl,
 					false, // isMove
 					true, // make parents
@@ -119,25 +424,62 @@ public class SVNVCS implements IVCS {
 			throw new EVCSBranchExists(dstBranchName);
 		}
 		throw new EVCSException(e);
+		} finally {
+			clientManagers.release(clientManager);
+			branchesCache.invalidate();
+			operation.end();
 		}
 	}
 	
 	@Override
 	public void deleteBranch(String branchName, String commitMessage) {
+		SVNOperation operation = startOperation("deleteBranch");
+		SVNClientManager clientManager = clientManagers.lease();
 		try {
+			SVNOperation.repositoryCall();
 			clientManager
 					.getCommitClient()
 					.doDelete(new SVNURL[] { getBranchUrl(branchName) }, commitMessage);
+			dirFirstCommits.remove(getBranchName(branchName));
 		} catch (SVNException e) {
 			throw new EVCSException(e);
+		} finally {
+			clientManagers.release(clientManager);
+			branchesCache.invalidate();
+			operation.end();
 		}
 	}
 	
 	@Override
 	public VCSMergeResult merge(String srcBranchName, String dstBranchName, String commitMessage) {
-		SVNDiffClient diffClient = clientManager.getDiffClient();
-		try (IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy()) {
-			checkout(getBranchUrl(dstBranchName), wc.getFolder(), null);
+		SVNOperation operation = startOperation("merge");
+		List<SVNRevisionRange> ranges = null;
+		if (mergeEligibleRevisionsOnly) {
+			try {
+				ranges = getEligibleRanges(srcBranchName, dstBranchName);
+			} catch (SVNException e) {
+				// mergeinfo is not available, merge the whole history
+			}
+			if (ranges != null && ranges.isEmpty()) {
+				operation.end();
+				return new VCSMergeResult(true, new ArrayList<>());
+			}
+		}
+		SVNClientManager clientManager = clientManagers.lease();
+		try (SVNWorkingCopyPool.Lease lease = leaseWorkingCopy(getBranchUrl(dstBranchName))) {
+			IVCSLockedWorkingCopy wc = lease.getWorkingCopy();
+			SVNDiffClient diffClient = clientManager.getDiffClient();
+			if (sparseWorkingCopies) {
+				List<String> changedPaths = new ArrayList<>();
+				try (SVNBranchesDiff diff = new SVNBranchesDiff(this, srcBranchName, dstBranchName, 1)) {
+					for (VCSDiffEntry entry : diff.getDiffEntries()) {
+						changedPaths.add(entry.getFilePath());
+					}
+				}
+				checkoutSparse(getBranchUrl(dstBranchName), wc.getFolder(), changedPaths);
+			} else {
+				checkout(getBranchUrl(dstBranchName), wc.getFolder(), null);
+			}
 
 			DefaultSVNOptions options = (DefaultSVNOptions) diffClient.getOptions();
 			final List<String> conflictingFiles = new ArrayList<>();
@@ -147,15 +489,19 @@ public class SVNVCS implements IVCS {
 						conflictDescription.getMergeFiles().getResultFile());
 			});
 
-			SVNRevisionRange range = new SVNRevisionRange(SVNRevision.create(1), SVNRevision.HEAD);
+			if (ranges == null) {
+				ranges = Collections.singletonList(new SVNRevisionRange(SVNRevision.create(1), SVNRevision.HEAD));
+			}
 			try {
+				SVNOperation.repositoryCall();
 				diffClient.doMerge(getBranchUrl(srcBranchName),
-						SVNRevision.HEAD, Collections.singleton(range),
+						SVNRevision.HEAD, ranges,
 						wc.getFolder(), SVNDepth.UNKNOWN, true, false, false, false);
 
 				Boolean success = conflictingFiles.isEmpty();
 
 				if (success) {
+					SVNOperation.repositoryCall();
 					clientManager
 							.getCommitClient()
 							.doCommit(new File[] {wc.getFolder()}, false, commitMessage,
@@ -178,25 +524,178 @@ public class SVNVCS implements IVCS {
 			throw new EVCSException(e);
 		} catch (Exception e) {
 			throw new RuntimeException(e);
+		} finally {
+			clientManagers.release(clientManager);
+			operation.end();
+		}
+	}
+
+	/**
+	 * Predicts result of {@link #merge(String, String, String)} without a working copy. Files changed by both branches
+	 * since the merge base are merged in memory, conflicting files are returned relative to the branch root.
+	 */
+	public VCSMergeResult previewMerge(String srcBranchName, String dstBranchName) {
+		SVNOperation operation = startOperation("previewMerge");
+		try {
+			return new SVNMergePreview(this, srcBranchName, dstBranchName).run();
+		} catch (SVNException e) {
+			throw new EVCSException(e);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		} finally {
+			operation.end();
+		}
+	}
+
+	/**
+	 * Returns revisions of the source branch which are not merged to the destination branch according to the
+	 * svn:mergeinfo recorded in the repository, ascending.
+	 */
+	public List<String> getMergeEligibleRevisions(String srcBranchName, String dstBranchName) {
+		SVNOperation operation = startOperation("getMergeEligibleRevisions");
+		try {
+			List<String> res = new ArrayList<>();
+			for (Long revision : getEligibleRevisions(srcBranchName, dstBranchName)) {
+				res.add(Long.toString(revision));
+			}
+			return res;
+		} catch (SVNException e) {
+			throw new EVCSException(e);
+		} finally {
+			operation.end();
+		}
+	}
+
+	List<Long> getEligibleRevisions(String srcBranchName, String dstBranchName) throws SVNException {
+		final List<Long> res = new ArrayList<>();
+		SVNClientManager clientManager = clientManagers.lease();
+		try {
+			SVNOperation.repositoryCall();
+			clientManager.getDiffClient().doGetLogEligibleMergeInfo(getBranchUrl(dstBranchName), SVNRevision.HEAD,
+					getBranchUrl(srcBranchName), SVNRevision.HEAD, false, null,
+					logEntry -> res.add(logEntry.getRevision()));
+		} finally {
+			clientManagers.release(clientManager);
+		}
+		Collections.sort(res);
+		return res;
+	}
+
+	/**
+	 * Returns eligible revisions joined into ranges of consecutive revisions. A gap between revisions may be a
+	 * revision merged already, so ranges are not joined over gaps.
+	 */
+	private List<SVNRevisionRange> getEligibleRanges(String srcBranchName, String dstBranchName) throws SVNException {
+		List<SVNRevisionRange> res = new ArrayList<>();
+		List<Long> revisions = getEligibleRevisions(srcBranchName, dstBranchName);
+		int i = 0;
+		while (i < revisions.size()) {
+			long start = revisions.get(i);
+			long end = start;
+			while (++i < revisions.size() && revisions.get(i) == end + 1) {
+				end++;
+			}
+			res.add(new SVNRevisionRange(SVNRevision.create(start - 1), SVNRevision.create(end)));
+		}
+		return res;
+	}
+
+	private SVNOperation startOperation(String name) {
+		return SVNOperation.start(metricsListener, name);
+	}
+
+	private IVCSLockedWorkingCopy lockWorkingCopy() throws Exception {
+		long startedAt = System.nanoTime();
+		IVCSLockedWorkingCopy res = repo.getVCSLockedWorkingCopy();
+		metricsListener.workingCopyLocked(System.nanoTime() - startedAt);
+		return res;
+	}
+
+	/**
+	 * Leases a working copy warm for the branch if any. Sparse working copies are not kept warm.
+	 */
+	private SVNWorkingCopyPool.Lease leaseWorkingCopy(SVNURL branchUrl) throws Exception {
+		return workingCopyPool.lease(sparseWorkingCopies ? null : branchUrl, this::lockWorkingCopy);
+	}
+
+	private void updateWarmWorkingCopy(File folder) throws SVNException {
+		SVNClientManager updateClientManager = SVNClientManager.newInstance(options,
+				getSVNRepository().getAuthenticationManager());
+		try {
+			long startedAt = System.nanoTime();
+			updateClientManager.getUpdateClient().doUpdate(folder, SVNRevision.HEAD, SVNDepth.INFINITY, false, false);
+			metricsListener.workingCopyUpdated("update", System.nanoTime() - startedAt);
+		} finally {
+			updateClientManager.dispose();
 		}
 	}
 
+	SVNUpdateClient createUpdateClient() {
+		return new SVNUpdateClient(authManager, options);
+	}
+
 	SVNWCClient getRevertClient(DefaultSVNOptions options) {
 		return new SVNWCClient(authManager, options);
 	}
 
 	private void checkout(SVNURL sourceUrl, File destPath, String revision) throws SVNException {
-		SVNUpdateClient updateClient = clientManager.getUpdateClient();
-		updateClient.setIgnoreExternals(false);
-		SVNRevision svnRevision = revision == null ? SVNRevision.HEAD : SVNRevision.parse(revision);
-		if (isWorkingCopyInited(destPath)) {
-			updateClient.doSwitch(destPath, sourceUrl, svnRevision, svnRevision, SVNDepth.INFINITY, false, false);
-		} else {
-			updateClient.doCheckout(sourceUrl, destPath, svnRevision, svnRevision, SVNDepth.UNKNOWN, false);
+		SVNClientManager clientManager = clientManagers.lease();
+		try {
+			SVNUpdateClient updateClient = clientManager.getUpdateClient();
+			updateClient.setIgnoreExternals(false);
+			SVNRevision svnRevision = revision == null ? SVNRevision.HEAD : SVNRevision.parse(revision);
+			long startedAt = System.nanoTime();
+			if (isWorkingCopyInited(destPath)) {
+				updateClient.doSwitch(destPath, sourceUrl, svnRevision, svnRevision, SVNDepth.INFINITY, false, true);
+				metricsListener.workingCopyUpdated("switch", System.nanoTime() - startedAt);
+			} else {
+				updateClient.doCheckout(sourceUrl, destPath, svnRevision, svnRevision, SVNDepth.UNKNOWN, false);
+				metricsListener.workingCopyUpdated("checkout", System.nanoTime() - startedAt);
+			}
+		} finally {
+			clientManagers.release(clientManager);
+		}
+	}
+
+	/**
+	 * Checks out branch root at empty depth, then brings in parent dirs of provided paths with their immediate
+	 * children. All paths are updated to the revision of the root.
+	 */
+	private void checkoutSparse(SVNURL sourceUrl, File destPath, Collection<String> paths) throws SVNException {
+		SVNClientManager clientManager = clientManagers.lease();
+		try {
+			SVNUpdateClient updateClient = clientManager.getUpdateClient();
+			updateClient.setIgnoreExternals(false);
+			long revision;
+			long startedAt = System.nanoTime();
+			if (isWorkingCopyInited(destPath)) {
+				revision = updateClient.doSwitch(destPath, sourceUrl, SVNRevision.HEAD, SVNRevision.HEAD, SVNDepth.EMPTY,
+						false, true);
+				metricsListener.workingCopyUpdated("switch", System.nanoTime() - startedAt);
+			} else {
+				revision = updateClient.doCheckout(sourceUrl, destPath, SVNRevision.HEAD, SVNRevision.HEAD, SVNDepth.EMPTY,
+						false);
+				metricsListener.workingCopyUpdated("checkout", System.nanoTime() - startedAt);
+			}
+			Set<String> dirs = new TreeSet<>();
+			for (String path : paths) {
+				dirs.add(SVNPathUtil.removeTail(StringUtils.removeStart(path.replace("\\", "/"), "/")));
+			}
+			List<File> dirFiles = new ArrayList<>();
+			for (String dir : dirs) {
+				dirFiles.add(dir.isEmpty() ? destPath : new File(destPath, dir));
+			}
+			startedAt = System.nanoTime();
+			updateClient.doUpdate(dirFiles.toArray(new File[dirFiles.size()]), SVNRevision.create(revision),
+					SVNDepth.IMMEDIATES, false, true, true);
+			metricsListener.workingCopyUpdated("update", System.nanoTime() - startedAt);
+		} finally {
+			clientManagers.release(clientManager);
 		}
 	}
 
 	public boolean isWorkingCopyInited(File destPath) {
+		SVNClientManager clientManager = clientManagers.lease();
 		try {
 			clientManager.getStatusClient().doStatus(destPath, false);
 			return true;
@@ -205,6 +704,8 @@ public class SVNVCS implements IVCS {
 				return false;
 			}
 			throw new EVCSException(e);
+		} finally {
+			clientManagers.release(clientManager);
 		}
 	}
 
@@ -213,8 +714,8 @@ public class SVNVCS implements IVCS {
 		userPassAuth = SVNPasswordAuthentication.newInstance(user, password == null ? null : password.toCharArray(),
 				true, trunkSVNUrl, false);
 		authManager.setAuthentications(new SVNAuthentication[] {userPassAuth});
-		clientManager = SVNClientManager.newInstance(
-				options, repository.getAuthenticationManager());
+		clientManagers.setPrimary(SVNClientManager.newInstance(
+				options, getSVNRepository().getAuthenticationManager()));
 	}
 
 	@Override
@@ -226,28 +727,232 @@ public class SVNVCS implements IVCS {
 	@Override
 	public String getFileContent(String branchName, String filePath, String revision) {
 		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		SVNRepository repository = sessionPool.lease();
+		SVNOperation operation = startOperation("getFileContent");
 		try {
-			repository.getFile(new File(getBranchName(branchName), filePath).getPath().replace("\\", "/"),
-					(revision == null || revision.isEmpty()) ? -1 : Long.parseLong(revision), new SVNProperties(), baos);
-			return baos.toString(StandardCharsets.UTF_8.name());
-		} catch (SVNException e) {
-			if (e.getErrorMessage().getErrorCode().getCode() == SVN_FILE_NOT_FOUND_ERROR_CODE) {
-				try {
-					if (repository.checkPath(getBranchName(branchName), -1L) == SVNNodeKind.NONE) {
-						throw new EVCSBranchNotFound(getRepoUrl(), getBranchName(branchName));
+			long fileRevision = parseRevision(revision);
+			if (fileContentCache.getMaxBytes() > 0) {
+				if (fileRevision < 0) {
+					fileRevision = getHeadRevision(repository, branchName);
+				}
+				if (fileRevision >= 0) {
+					byte[] content = fileContentCache.get(getBranchName(branchName), filePath, fileRevision);
+					if (content == null) {
+						SVNOperation.repositoryCall();
+						repository.getFile(getBranchFilePath(branchName, filePath), fileRevision, null, baos);
+						SVNOperation.bytes(baos.size());
+						content = baos.toByteArray();
+						fileContentCache.put(getBranchName(branchName), filePath, fileRevision, content);
 					}
-				} catch (SVNException e1) {
-					throw new EVCSException(e1);
+					return new String(content, StandardCharsets.UTF_8);
 				}
-				throw new EVCSFileNotFound(getRepoUrl(), getBranchName(branchName), filePath, revision);
 			}
-			throw new EVCSException(e);
+			SVNOperation.repositoryCall();
+			repository.getFile(getBranchFilePath(branchName, filePath), fileRevision, new SVNProperties(), baos);
+			SVNOperation.bytes(baos.size());
+			return baos.toString(StandardCharsets.UTF_8.name());
+		} catch (SVNException e) {
+			throw getFileContentException(e, branchName, filePath, revision);
 		} catch (Exception e) {
 			throw new RuntimeException(e);
+		} finally {
+			sessionPool.release(repository);
+			operation.end();
+		}
+	}
+
+	public SVNFileInfo getFileContent(String branchName, String filePath, String revision, OutputStream out) {
+		SVNProperties properties = new SVNProperties();
+		SVNRepository repository = sessionPool.lease();
+		SVNOperation operation = startOperation("getFileContent");
+		try {
+			SVNOperation.repositoryCall();
+			CountingOutputStream countingOut = new CountingOutputStream(out);
+			long fileRevision = repository.getFile(getBranchFilePath(branchName, filePath), parseRevision(revision),
+					properties, countingOut);
+			SVNOperation.bytes(countingOut.getByteCount());
+			return new SVNFileInfo(fileRevision, properties);
+		} catch (SVNException e) {
+			throw getFileContentException(e, branchName, filePath, revision);
+		} finally {
+			sessionPool.release(repository);
+			operation.end();
+		}
+	}
+
+	public SVNFileInfo getFileContent(String branchName, String filePath, String revision, Path targetFile) {
+		SVNOperation operation = startOperation("getFileContent");
+		boolean success = false;
+		try (FileChannel channel = FileChannel.open(targetFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+			 OutputStream out = Channels.newOutputStream(channel)) {
+			SVNFileInfo res = getFileContent(branchName, filePath, revision, out);
+			success = true;
+			return res;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			if (!success) {
+				FileUtils.deleteQuietly(targetFile.toFile());
+			}
+			operation.end();
 		}
 	}
 
-	private String getBranchName(String branchName) {
+	public SVNFileContentStream getFileContentStream(String branchName, String filePath, String revision) {
+		String path = getBranchFilePath(branchName, filePath);
+		SVNRepository repository = sessionPool.lease();
+		SVNOperation operation = startOperation("getFileContentStream");
+		try {
+			long fileRevision = parseRevision(revision);
+			if (fileRevision < 0) {
+				SVNOperation.repositoryCall();
+				fileRevision = repository.getLatestRevision();
+			}
+			SVNProperties properties = new SVNProperties();
+			SVNOperation.repositoryCall();
+			repository.getFile(path, fileRevision, properties, null);
+			return new SVNFileContentStream(sessionPool, workers, path, fileRevision, properties);
+		} catch (SVNException e) {
+			throw getFileContentException(e, branchName, filePath, revision);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			sessionPool.release(repository);
+			operation.end();
+		}
+	}
+
+	public Map<String, String> getFileContents(final String branchName, Collection<String> filePaths, String revision) {
+		Map<String, String> res = new LinkedHashMap<>();
+		if (filePaths.isEmpty()) {
+			return res;
+		}
+		SVNOperation operation = startOperation("getFileContents");
+		try {
+			final long fileRevision = getBranchRevision(branchName, revision);
+			List<String> distinctPaths = new ArrayList<>(new LinkedHashSet<>(filePaths));
+			List<SVNWorkers.Task<byte[]>> tasks = new ArrayList<>();
+			for (final String filePath : distinctPaths) {
+				tasks.add(() -> readFileContent(branchName, filePath, fileRevision));
+			}
+			List<byte[]> contents = workers.invokeAll(tasks, readThreadsCount);
+			for (int i = 0; i < distinctPaths.size(); i++) {
+				byte[] bytes = contents.get(i);
+				res.put(distinctPaths.get(i), bytes == null ? null : new String(bytes, StandardCharsets.UTF_8));
+			}
+			return res;
+		} catch (SVNException e) {
+			throw new EVCSException(e);
+		} finally {
+			operation.end();
+		}
+	}
+
+	private long getHeadRevision(SVNRepository repository, String branchName) throws SVNException {
+		long latestRevision = branchesCache.getLatestRevision(this::getLatestRevision);
+		long res = fileContentCache.getHeadRevision(getBranchName(branchName), latestRevision);
+		if (res < 0) {
+			SVNOperation.repositoryCall();
+			SVNDirEntry branchEntry = repository.info(getBranchName(branchName), latestRevision);
+			if (branchEntry != null) {
+				res = branchEntry.getRevision();
+				fileContentCache.putHeadRevision(getBranchName(branchName), latestRevision, res);
+			}
+		}
+		return res;
+	}
+
+	byte[] readFileContent(String branchName, String filePath, long revision) throws SVNException {
+		byte[] res = fileContentCache.get(getBranchName(branchName), filePath, revision);
+		if (res != null) {
+			return res;
+		}
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		SVNRepository repository = sessionPool.lease();
+		try {
+			SVNOperation.repositoryCall();
+			repository.getFile(getBranchFilePath(branchName, filePath), revision, null, baos);
+			SVNOperation.bytes(baos.size());
+		} catch (SVNException e) {
+			if (e.getErrorMessage().getErrorCode().getCode() == SVN_FILE_NOT_FOUND_ERROR_CODE) {
+				return null;
+			}
+			throw e;
+		} finally {
+			sessionPool.release(repository);
+		}
+		res = baos.toByteArray();
+		fileContentCache.put(getBranchName(branchName), filePath, revision, res);
+		return res;
+	}
+
+	private long getBranchRevision(String branchName, String revision) throws SVNException {
+		long res = parseRevision(revision);
+		SVNDirEntry branchEntry = getBranchEntry(branchName, res);
+		if (branchEntry == null) {
+			throw new EVCSBranchNotFound(getRepoUrl(), getBranchName(branchName));
+		}
+		return res < 0 ? branchEntry.getRevision() : res;
+	}
+
+	SVNDirEntry getBranchEntry(String branchName, long revision) throws SVNException {
+		SVNRepository repository = sessionPool.lease();
+		try {
+			SVNOperation.repositoryCall();
+			return repository.info(getBranchName(branchName), revision);
+		} finally {
+			sessionPool.release(repository);
+		}
+	}
+
+	long getLatestRevision() throws SVNException {
+		SVNRepository repository = sessionPool.lease();
+		try {
+			SVNOperation.repositoryCall();
+			return repository.getLatestRevision();
+		} finally {
+			sessionPool.release(repository);
+		}
+	}
+
+	SVNRepository createSession() throws SVNException {
+		return createSession(getSVNRepository().getLocation());
+	}
+
+	SVNRepository createSession(SVNURL url) throws SVNException {
+		SVNRepository res = SVNRepositoryFactory.create(url);
+		res.setAuthenticationManager(authManager);
+		return res;
+	}
+
+	private RuntimeException getFileContentException(SVNException e, String branchName, String filePath, String revision) {
+		if (e.getErrorMessage().getErrorCode().getCode() == SVN_FILE_NOT_FOUND_ERROR_CODE) {
+			SVNRepository repository = sessionPool.lease();
+			try {
+				SVNOperation.repositoryCall();
+				if (repository.checkPath(getBranchName(branchName), -1L) == SVNNodeKind.NONE) {
+					return new EVCSBranchNotFound(getRepoUrl(), getBranchName(branchName));
+				}
+			} catch (SVNException e1) {
+				return new EVCSException(e1);
+			} finally {
+				sessionPool.release(repository);
+			}
+			return new EVCSFileNotFound(getRepoUrl(), getBranchName(branchName), filePath, revision);
+		}
+		return new EVCSException(e);
+	}
+
+	private String getBranchFilePath(String branchName, String filePath) {
+		return new File(getBranchName(branchName), filePath).getPath().replace("\\", "/");
+	}
+
+	private long parseRevision(String revision) {
+		return (revision == null || revision.isEmpty()) ? -1 : Long.parseLong(revision);
+	}
+
+	String getBranchName(String branchName) {
 		return branchName == null ? MASTER_PATH : BRANCHES_PATH + branchName;
 	}
 	
@@ -256,9 +961,45 @@ public class SVNVCS implements IVCS {
 		if (vcsChangeList.isEmpty()) {
 			return null;
 		}
-		try (IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy()) {
-			checkout(getBranchUrl(branchName), wc.getFolder(), null);
-			StringBuilder commitMessageSB = new StringBuilder();
+		if (useWorkingCopyForCommits) {
+			return setFileContentInWorkingCopy(branchName, vcsChangeList);
+		}
+		SVNOperation operation = startOperation("setFileContent");
+		SVNRepository repository = sessionPool.lease();
+		try {
+			return new SVNRemoteCommit(repository).commit(getRepoUrl(), getBranchName(branchName), vcsChangeList,
+					getCommitMessage(vcsChangeList));
+		} catch (SVNException e) {
+			throw new EVCSException(e);
+		} finally {
+			sessionPool.release(repository);
+			operation.end();
+		}
+	}
+
+	private String getCommitMessage(List<VCSChangeListNode> vcsChangeList) {
+		StringBuilder commitMessageSB = new StringBuilder();
+		for (VCSChangeListNode vcsChangeListNode : vcsChangeList) {
+			commitMessageSB.append(vcsChangeListNode.getLogMessage() + VCSChangeListNode.COMMIT_MESSAGES_SEPARATOR);
+		}
+		commitMessageSB.setLength(commitMessageSB.length() - VCSChangeListNode.COMMIT_MESSAGES_SEPARATOR.length());
+		return commitMessageSB.toString();
+	}
+
+	private VCSCommit setFileContentInWorkingCopy(String branchName, List<VCSChangeListNode> vcsChangeList) {
+		SVNOperation operation = startOperation("setFileContent");
+		SVNClientManager clientManager = clientManagers.lease();
+		try (SVNWorkingCopyPool.Lease lease = leaseWorkingCopy(getBranchUrl(branchName))) {
+			IVCSLockedWorkingCopy wc = lease.getWorkingCopy();
+			if (sparseWorkingCopies) {
+				List<String> filePaths = new ArrayList<>();
+				for (VCSChangeListNode vcsChangeListNode : vcsChangeList) {
+					filePaths.add(vcsChangeListNode.getFilePath());
+				}
+				checkoutSparse(getBranchUrl(branchName), wc.getFolder(), filePaths);
+			} else {
+				checkout(getBranchUrl(branchName), wc.getFolder(), null);
+			}
 			for (VCSChangeListNode vcsChangeListNode : vcsChangeList) {
 				String filePath = vcsChangeListNode.getFilePath();
 				File file = new File(wc.getFolder(), filePath);
@@ -279,12 +1020,11 @@ public class SVNVCS implements IVCS {
 									true /* force, avoiding "file is already under version control" exception */,
 									false, false, SVNDepth.EMPTY, false, true);
 				}
-				commitMessageSB.append(vcsChangeListNode.getLogMessage() + VCSChangeListNode.COMMIT_MESSAGES_SEPARATOR);
 			}
 
-			commitMessageSB.setLength(commitMessageSB.length() - VCSChangeListNode.COMMIT_MESSAGES_SEPARATOR.length());
-			String commitMessage = commitMessageSB.toString();
+			String commitMessage = getCommitMessage(vcsChangeList);
 			try {
+				SVNOperation.repositoryCall();
 				SVNCommitInfo newCommit = clientManager
 						.getCommitClient()
 						.doCommit(new File[] { wc.getFolder() }, false, commitMessage,
@@ -299,6 +1039,9 @@ public class SVNVCS implements IVCS {
 			throw new EVCSException(e);
 		} catch (Exception e) {
 			throw new RuntimeException(e);
+		} finally {
+			clientManagers.release(clientManager);
+			operation.end();
 		}
 	}
 
@@ -312,72 +1055,139 @@ public class SVNVCS implements IVCS {
 		return repo.getRepoUrl();
 	}
 	
-	private List<VCSDiffEntry> fillUnifiedDiffs(final String srcBranchName, final String dstBranchName, List<VCSDiffEntry> entries)
-			throws Exception {
-		List<VCSDiffEntry> res = new ArrayList<>();
-		for (VCSDiffEntry entry : entries) {
-			ByteArrayOutputStream baos = new ByteArrayOutputStream();
-			
-			final SvnOperationFactory svnOperationFactory = new SvnOperationFactory();
-			final SvnDiff diff = svnOperationFactory.createDiff();
-			
-			if (entry.getChangeType() == VCSChangeType.ADD) {
-				SVNLogEntry firstCommit = getBranchFirstCommit(dstBranchName);
-				diff.setSource(SvnTarget.fromURL(getBranchUrl(srcBranchName).appendPath(entry.getFilePath(), true), SVNRevision.HEAD), 
-						SVNRevision.create(firstCommit.getRevision()), 
-						SVNRevision.create(repository.info(getBranchName(dstBranchName), -1).getRevision()));
-			} else if (entry.getChangeType() == VCSChangeType.DELETE) {
-				SVNLogEntry firstCommit = getBranchFirstCommit(dstBranchName);
-				diff.setSource(SvnTarget.fromURL(getBranchUrl(dstBranchName).appendPath(entry.getFilePath(), true), SVNRevision.HEAD), 
-						SVNRevision.create(repository.info(getBranchName(dstBranchName), -1).getRevision()),
-						SVNRevision.create(firstCommit.getRevision()));
+	/**
+	 * Returns the commit the dir was copied or added by. Memoized per dir, the memo is checked to belong to the current
+	 * node of the dir once the repository moves, so a dir removed and created again by another client is resolved
+	 * again.
+	 */
+	private SVNLogEntry getDirFirstCommit(final String dir) throws SVNException {
+		long latestRevision = branchesCache.getLatestRevision(this::getLatestRevision);
+		DirFirstCommit memo = dirFirstCommits.get(dir);
+		if (memo != null && memo.validatedRevision < latestRevision) {
+			memo = isDirCreatedAt(dir, memo.entry.getRevision(), latestRevision)
+					? new DirFirstCommit(memo.entry, latestRevision)
+					: null;
+			if (memo == null) {
+				dirFirstCommits.remove(dir);
 			} else {
-				diff.setSources(
-					SvnTarget.fromURL(getBranchUrl(dstBranchName).appendPath(entry.getFilePath(), true), SVNRevision.HEAD),
-					SvnTarget.fromURL(getBranchUrl(srcBranchName).appendPath(entry.getFilePath(), true), SVNRevision.HEAD));
+				dirFirstCommits.put(dir, memo);
 			}
-            diff.setOutput(baos);
-            diff.run();
-
-			res.add(new VCSDiffEntry(entry.getFilePath(), entry.getChangeType(), baos.toString("UTF-8")));
+		}
+		SVNLogEntry res = memo == null ? null : memo.entry;
+		if (res == null) {
+			List<SVNLogEntry> history = getIndexedHistory(dir, -1, 0);
+			if (history != null) {
+				res = history.get(history.size() - 1);
+			} else {
+				final List<SVNLogEntry> entries = new ArrayList<>(1);
+				SVNRepository repository = sessionPool.lease();
+				try {
+					SVNOperation.repositoryCall();
+					repository.log(new String[] { dir }, 0 /* start from first commit */, -1 /* to the head commit */,
+							false, true /* stop on copy */, 1 /* limit */, entries::add);
+				} finally {
+					sessionPool.release(repository);
+				}
+				res = entries.iterator().next();
+			}
+			dirFirstCommits.put(dir, new DirFirstCommit(res, latestRevision));
 		}
 		return res;
 	}
-	
-	private SVNLogEntry getDirFirstCommit(final String dir) throws SVNException {
-		@SuppressWarnings("unchecked")
-		Collection<SVNLogEntry> entries = repository.log(new String[] { dir }, null, 0 /* start from first commit */,
-				-1 /* to the head commit */, true, true);
-		return entries.iterator().next();
+
+	/**
+	 * Checks by the location segments of the dir whether its node at the latest revision starts at the revision.
+	 */
+	private boolean isDirCreatedAt(String dir, long revision, long latestRevision) throws SVNException {
+		final List<SVNLocationSegment> segments = new ArrayList<>();
+		SVNRepository repository = sessionPool.lease();
+		try {
+			SVNOperation.repositoryCall();
+			repository.getLocationSegments(dir, latestRevision, latestRevision, revision, segments::add);
+		} catch (SVNException e) {
+			if (e.getErrorMessage().getErrorCode().getCode() == SVN_FILE_NOT_FOUND_ERROR_CODE) {
+				return false;
+			}
+			throw e;
+		} finally {
+			sessionPool.release(repository);
+		}
+		SVNLocationSegment youngest = null;
+		for (SVNLocationSegment segment : segments) {
+			if (youngest == null || segment.getEndRevision() > youngest.getEndRevision()) {
+				youngest = segment;
+			}
+		}
+		return youngest != null && youngest.getStartRevision() == revision;
 	}
 
 	SVNLogEntry getBranchFirstCommit(final String branchPath) throws SVNException {
 		return getDirFirstCommit(getBranchName(branchPath));
 	}
-	
-	private List<VCSDiffEntry> getDiffEntries(final String srcBranchName, final String dstBranchName)
-			throws Exception {
-		final SvnOperationFactory svnOperationFactory = new SvnOperationFactory();
-		final SvnDiffSummarize summarizeDiff = svnOperationFactory.createDiffSummarize();
-		final List<VCSDiffEntry> res = new ArrayList<>();
-		
-		summarizeDiff.setSources(
-				SvnTarget.fromURL(getBranchUrl(dstBranchName), SVNRevision.HEAD),
-				SvnTarget.fromURL(getBranchUrl(srcBranchName), SVNRevision.HEAD));
-		
-		summarizeDiff.setReceiver((target, diffStatus) -> {
-			if (diffStatus.getPath().length() == 0) {
-				return;
+
+	/**
+	 * Returns strict history of the dir from the peg revision (-1 for head) taken from the synced commit index, newest
+	 * first, at most limit entries if limit is positive. Null is returned if the index is disabled or can not answer,
+	 * e.g. if the dir does not exist.
+	 */
+	List<SVNLogEntry> getIndexedHistory(String dir, long pegRevision, int limit) throws SVNException {
+		if (getCommitIndexDir() == null) {
+			return null;
+		}
+		SVNRepository repository = sessionPool.lease();
+		try {
+			SVNCommitIndex index = getCommitIndex(repository);
+			if (index == null) {
+				return null;
 			}
-			VCSDiffEntry entry = new VCSDiffEntry(diffStatus.getPath(),
-					SVNChangeTypeToVCSChangeType(diffStatus.getModificationType()), null);
-			res.add(entry);
-		});
-		summarizeDiff.run();
+			index.sync(repository);
+			return index.getHistory(StringUtils.removeEnd(repository.getRepositoryPath(dir), "/"), pegRevision, limit);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			sessionPool.release(repository);
+		}
+	}
 
+	/**
+	 * Returns indexed history entries of the dir between the revisions inclusive, ordered from the start revision to
+	 * the end one. End revision -1 means head.
+	 */
+	List<SVNLogEntry> getIndexedRange(String dir, long startRevision, long endRevision) throws SVNException {
+		List<SVNLogEntry> history = getIndexedHistory(dir,
+				endRevision < 0 || startRevision < 0 ? -1 : Math.max(startRevision, endRevision), 0);
+		if (history == null) {
+			return null;
+		}
+		long minRevision = endRevision < 0 ? startRevision : Math.min(startRevision, endRevision);
+		List<SVNLogEntry> res = new ArrayList<>();
+		for (SVNLogEntry logEntry : history) {
+			if (logEntry.getRevision() >= minRevision) {
+				res.add(logEntry);
+			}
+		}
+		if (endRevision < 0 || startRevision < endRevision) {
+			Collections.reverse(res);
+		}
 		return res;
 	}
 
+	private synchronized SVNCommitIndex getCommitIndex(SVNRepository repository) throws SVNException {
+		if (commitIndex == null && commitIndexDir != null) {
+			commitIndexDir.mkdirs();
+			SVNOperation.repositoryCall();
+			String uuid = repository.getRepositoryUUID(true);
+			String location = repository.getRepositoryPath("");
+			commitIndex = new SVNCommitIndex(new File(commitIndexDir,
+					uuid + "-" + Integer.toHexString(location.hashCode())));
+		}
+		return commitIndex;
+	}
+
+	private <T> List<T> limit(List<T> list, int limit) {
+		return limit > 0 && list.size() > limit ? list.subList(0, limit) : list;
+	}
+	
 	public VCSChangeType SVNChangeTypeToVCSChangeType(SVNStatusType modificationType) {
 		if (SVNStatusType.STATUS_ADDED.equals(modificationType)) {
 			return VCSChangeType.ADD;
@@ -392,24 +1202,50 @@ public class SVNVCS implements IVCS {
 
 	@Override
 	public List<VCSDiffEntry> getBranchesDiff(final String srcBranchName, final String dstBranchName) {
-		try (IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy()) {
-			checkout(getBranchUrl(dstBranchName), wc.getFolder(), null);
-			List<VCSDiffEntry> entries = getDiffEntries(srcBranchName, dstBranchName);
-			entries = fillUnifiedDiffs(srcBranchName, dstBranchName, entries);
-			return entries;
+		SVNOperation operation = startOperation("getBranchesDiff");
+		try (SVNBranchesDiff diff = new SVNBranchesDiff(this, srcBranchName, dstBranchName, diffThreadsCount)) {
+			return diff.fillUnifiedDiffs(diff.getDiffEntries());
 		} catch (SVNException e) {
 			throw new EVCSException(e);
 		} catch (Exception e) {
 			throw new RuntimeException(e);
+		} finally {
+			operation.end();
+		}
+	}
+
+	public void getBranchesDiff(final String srcBranchName, final String dstBranchName, Consumer<SVNLazyDiffEntry> consumer) {
+		SVNOperation operation = startOperation("getBranchesDiff");
+		try (SVNBranchesDiff diff = new SVNBranchesDiff(this, srcBranchName, dstBranchName, 1)) {
+			diff.getDiffEntries(consumer);
+		} catch (SVNException e) {
+			throw new EVCSException(e);
+		} finally {
+			operation.end();
 		}
 	}
 
 	@Override
 	public Set<String> getBranches(String path) {
+		SVNOperation operation = startOperation("getBranches");
+		try {
+			long revision = branchesCache.getLatestRevision(this::getLatestRevision);
+			return new HashSet<>(branchesCache.get(path == null ? "" : path, revision, () -> listBranches(path, -1)));
+		} catch (SVNException e) {
+			throw new EVCSException(e);
+		} finally {
+			operation.end();
+		}
+	}
+
+	Set<String> listBranches(String path, long revision) throws SVNException {
+		SVNRepository repository = sessionPool.lease();
 		try {
-			List<String> entries = listEntries(SVNVCS.BRANCHES_PATH + (path == null ? "" : path));
+			String branchesPath = SVNVCS.BRANCHES_PATH + (path == null ? "" : path);
+			List<String> entries = revision < 0 ? listEntries(branchesPath) : listEntries(branchesPath, revision);
 			Set<String> tempRes = new HashSet<>(entries);
-			if (repository.checkPath(MASTER_PATH, -1) == SVNNodeKind.DIR) {
+			SVNOperation.repositoryCall();
+			if (repository.checkPath(MASTER_PATH, revision) == SVNNodeKind.DIR) {
 				if (path == null || MASTER_PATH.startsWith(path) ) {
 					tempRes.add(MASTER_PATH.replace("/", ""));
 				}
@@ -418,14 +1254,18 @@ public class SVNVCS implements IVCS {
 			for (String str : tempRes) {
 				res.add(StringUtils.removeStart(str, SVNVCS.BRANCHES_PATH));
 			}
-			return res;
-		} catch (SVNException e) {
-			throw new EVCSException(e);
+			return Collections.unmodifiableSet(res);
+		} finally {
+			sessionPool.release(repository);
 		}
 	}
 	
-	@SuppressWarnings("unchecked")
 	List<String> listEntries(String path) throws SVNException {
+		return listEntries(path, -1);
+	}
+
+	@SuppressWarnings("unchecked")
+	List<String> listEntries(String path, long revision) throws SVNException {
 		List<String> res = new ArrayList<>();
 		if (path == null) {
 			return res;
@@ -437,7 +1277,14 @@ public class SVNVCS implements IVCS {
 		lastFolder = lastSlashIndex > 0 ? path.substring(0, lastSlashIndex) : path;
 		folderPrefix =  lastSlashIndex > 0 ? path.substring(lastSlashIndex + 1) : "";
 		
-		Collection<SVNDirEntry> entries = repository.getDir(lastFolder, -1 , null , (Collection<SVNDirEntry>) null);
+		Collection<SVNDirEntry> entries;
+		SVNRepository repository = sessionPool.lease();
+		try {
+			SVNOperation.repositoryCall();
+			entries = repository.getDir(lastFolder, revision, null , (Collection<SVNDirEntry>) null);
+		} finally {
+			sessionPool.release(repository);
+		}
 		List<SVNDirEntry> entriesList = new ArrayList<>(entries);
 		Collections.sort(entriesList, (o1, o2) -> {
 			if (o1.getRevision() < o2.getRevision()) {
@@ -461,14 +1308,27 @@ public class SVNVCS implements IVCS {
 	@Override
 	public List<VCSCommit> log(String branchName, int limit) {
 		final List<VCSCommit> res = new ArrayList<>();
+		SVNRepository repository = sessionPool.lease();
+		SVNOperation operation = startOperation("log");
 		try {
 			getBranchUrl(branchName); // for exception test only
+			List<SVNLogEntry> history = getIndexedHistory(getBranchName(branchName), -1, limit);
+			if (history != null) {
+				for (SVNLogEntry logEntry : history) {
+					res.add(svnLogEntryToVCSCommit(logEntry));
+				}
+				return res;
+			}
+			SVNOperation.repositoryCall();
 			repository.log(new String[] { getBranchName(branchName) }, 
 					-1L /* start from head descending */, 
-					0L, true, true, limit, logEntry -> res.add(svnLogEntryToVCSCommit(logEntry)));
+					0L, false, true, limit, logEntry -> res.add(svnLogEntryToVCSCommit(logEntry)));
 			return res;
 		} catch (SVNException e) {
 			throw new EVCSException(e);
+		} finally {
+			sessionPool.release(repository);
+			operation.end();
 		}
 	}
 
@@ -479,19 +1339,27 @@ public class SVNVCS implements IVCS {
 
 	@Override
 	public VCSCommit removeFile(String branchName, String filePath, String commitMessage) {
+		SVNOperation operation = startOperation("removeFile");
+		SVNClientManager clientManager = clientManagers.lease();
 		try {
+			SVNOperation.repositoryCall();
 			SVNCommitInfo res = clientManager
 					.getCommitClient()
 					.doDelete(new SVNURL[] {getBranchUrl(branchName).appendPath(filePath, true)}, commitMessage);
 			return new VCSCommit(Long.toString(res.getNewRevision()), commitMessage, res.getAuthor());
 		} catch (SVNException e) {
 			throw new EVCSException(e);
+		} finally {
+			clientManagers.release(clientManager);
+			operation.end();
 		}
 	}
 	
 	@Override
 	public List<VCSCommit> getCommitsRange(String branchName, String startRevision, WalkDirection direction, int limit) {
 		final List<VCSCommit> res = new ArrayList<>();
+		SVNRepository repository = sessionPool.lease();
+		SVNOperation operation = startOperation("getCommitsRange");
 		try {
 			Long startRevisionLong;
 			Long endRevisionLong;
@@ -504,7 +1372,15 @@ public class SVNVCS implements IVCS {
 					Long.parseLong(startRevision);
 				endRevisionLong = getBranchFirstCommit(branchName).getRevision();
 			}
-			repository.log(new String[] { getBranchName(branchName) }, startRevisionLong, endRevisionLong, true, true, limit,
+			List<SVNLogEntry> indexed = getIndexedRange(getBranchName(branchName), startRevisionLong, endRevisionLong);
+			if (indexed != null) {
+				for (SVNLogEntry logEntry : limit(indexed, limit)) {
+					res.add(svnLogEntryToVCSCommit(logEntry));
+				}
+				return res;
+			}
+			SVNOperation.repositoryCall();
+			repository.log(new String[] { getBranchName(branchName) }, startRevisionLong, endRevisionLong, false, true, limit,
 					logEntry -> {
 						VCSCommit commit = svnLogEntryToVCSCommit(logEntry);
 						res.add(commit);
@@ -512,10 +1388,69 @@ public class SVNVCS implements IVCS {
 			return res;
 		} catch (SVNException e) {
 			throw new EVCSException(e);
+		} finally {
+			sessionPool.release(repository);
+			operation.end();
 		}
 	}
 	
-	private VCSCommit svnLogEntryToVCSCommit(SVNLogEntry logEntry) {
+	/**
+	 * Opens read-only snapshot of the repository at the latest revision.
+	 */
+	public SVNSnapshot openSnapshot() {
+		return openSnapshot(null);
+	}
+
+	/**
+	 * Opens read-only snapshot of the repository at the revision, null means the latest one. Snapshots of the few
+	 * recently opened revisions are shared, so their results are requested once for all callers.
+	 */
+	public SVNSnapshot openSnapshot(String revision) {
+		try {
+			long snapshotRevision = revision == null ? getLatestRevision() : Long.parseLong(revision);
+			synchronized (snapshots) {
+				return snapshots.computeIfAbsent(snapshotRevision, rev -> new SVNSnapshot(this, rev));
+			}
+		} catch (SVNException e) {
+			throw new EVCSException(e);
+		}
+	}
+
+	/**
+	 * Returns cursor over the branch log which requests log entries by chunks of provided size. Null start revision
+	 * means the branch first commit for ascending direction and the head revision for descending one.
+	 */
+	public SVNLogCursor getLogCursor(String branchName, String startRevision, WalkDirection direction, int chunkSize,
+			boolean changedPaths) {
+		try {
+			return new SVNLogCursor(this, branchName, startRevision, direction, chunkSize, changedPaths);
+		} catch (SVNException e) {
+			throw new EVCSException(e);
+		}
+	}
+
+	/**
+	 * Lazy stream of the branch commits, see {@link #getLogCursor(String, String, WalkDirection, int, boolean)}. Log
+	 * is not requested further than the stream is consumed.
+	 */
+	public Stream<VCSCommit> getCommits(String branchName, String startRevision, WalkDirection direction, int chunkSize) {
+		SVNLogCursor cursor = getLogCursor(branchName, startRevision, direction, chunkSize, false);
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED | Spliterator.NONNULL),
+				false).map(this::svnLogEntryToVCSCommit);
+	}
+
+	void readLog(String path, long startRevision, long endRevision, boolean changedPaths, long limit,
+			ISVNLogEntryHandler handler) throws SVNException {
+		SVNRepository repository = sessionPool.lease();
+		try {
+			SVNOperation.repositoryCall();
+			repository.log(new String[] { path }, startRevision, endRevision, changedPaths, true, limit, handler);
+		} finally {
+			sessionPool.release(repository);
+		}
+	}
+
+	VCSCommit svnLogEntryToVCSCommit(SVNLogEntry logEntry) {
 		return new VCSCommit(Long.toString(logEntry.getRevision()), logEntry.getMessage(),
 				logEntry.getAuthor());
 	}
@@ -523,21 +1458,35 @@ public class SVNVCS implements IVCS {
 	@Override
 	public List<VCSCommit> getCommitsRange(String branchName, String startRevision, String endRevision) {
 		final List<VCSCommit> res = new ArrayList<>();
+		SVNRepository repository = sessionPool.lease();
+		SVNOperation operation = startOperation("getCommitsRange");
 		try {
 			Long startRevisionLong = startRevision == null ?
 					getBranchFirstCommit(branchName).getRevision() :
 					Long.parseLong(startRevision);
 			Long endRevisionLong = endRevision == null ? -1L : Long.parseLong(endRevision);
-			repository.log(new String[] { getBranchName(branchName) }, startRevisionLong, endRevisionLong, true, true, 0 /* limit */,
+			List<SVNLogEntry> indexed = getIndexedRange(getBranchName(branchName), startRevisionLong, endRevisionLong);
+			if (indexed != null) {
+				for (SVNLogEntry logEntry : indexed) {
+					res.add(svnLogEntryToVCSCommit(logEntry));
+				}
+				return res;
+			}
+			SVNOperation.repositoryCall();
+			repository.log(new String[] { getBranchName(branchName) }, startRevisionLong, endRevisionLong, false, true, 0 /* limit */,
 					logEntry -> res.add(svnLogEntryToVCSCommit(logEntry)));
 			return res;
 		} catch (SVNException e) {
 			throw new EVCSException(e);
+		} finally {
+			sessionPool.release(repository);
+			operation.end();
 		}
 	}
 
 	@Override
 	public VCSCommit getHeadCommit(String branchName) {
+		SVNOperation operation = startOperation("getHeadCommit");
 		try {
 			SVNLogEntry headEntry = getDirHeadLogEntry(getBranchName(branchName));
 			return new VCSCommit(Long.toString(headEntry.getRevision()), headEntry.getMessage(), headEntry.getAuthor());
@@ -546,16 +1495,158 @@ public class SVNVCS implements IVCS {
 				return null;
 			}
 			throw new EVCSException(e);
+		} finally {
+			operation.end();
 		}
 	}
 	
 	SVNLogEntry getDirHeadLogEntry(String dir) throws SVNException {
-		@SuppressWarnings("unchecked")
-		Collection<SVNLogEntry> entries = repository.log(new String[] { dir }, null, -1 /* start from head commit */,
-				0 /* to the first commit */, true, true);
+		List<SVNLogEntry> history = getIndexedHistory(dir, -1, 1);
+		if (history != null) {
+			return history.get(0);
+		}
+		final List<SVNLogEntry> entries = new ArrayList<>(1);
+		SVNRepository repository = sessionPool.lease();
+		try {
+			SVNOperation.repositoryCall();
+			repository.log(new String[] { dir }, -1 /* start from head commit */, 0 /* to the first commit */,
+					false, true, 1 /* limit */, entries::add);
+		} finally {
+			sessionPool.release(repository);
+		}
 		return entries.iterator().next();
 	}
 
+	public Map<String, VCSCommit> getHeadCommits(Collection<String> branchNames) {
+		Map<String, VCSCommit> res = new LinkedHashMap<>();
+		SVNRepository repository = sessionPool.lease();
+		SVNOperation operation = startOperation("getHeadCommits");
+		try {
+			if (getCommitIndexDir() != null) {
+				for (String branchName : branchNames) {
+					List<SVNLogEntry> history = getIndexedHistory(getBranchName(branchName), -1, 1);
+					res.put(branchName, history == null ? getHeadCommit(branchName) : svnLogEntryToVCSCommit(history.get(0)));
+				}
+				return res;
+			}
+			// relative branch paths to repository paths
+			final Map<String, String> branchPaths = new LinkedHashMap<>();
+			for (String branchName : branchNames) {
+				branchPaths.put(getBranchName(branchName),
+						StringUtils.removeEnd(repository.getRepositoryPath(getBranchName(branchName)), "/"));
+			}
+			Map<String, VCSCommit> heads;
+			try {
+				heads = logHeadCommits(repository, branchPaths.keySet(), -1);
+			} catch (SVNException e) {
+				if (e.getErrorMessage().getErrorCode().getCode() != SVN_FILE_NOT_FOUND_ERROR_CODE) {
+					throw e;
+				}
+				// some of the branches do not exist, log is requested again for the existing ones only
+				SVNOperation.repositoryCall();
+				long latestRevision = repository.getLatestRevision();
+				heads = logHeadCommits(repository, getExistingDirs(repository, branchPaths.keySet(), latestRevision),
+						latestRevision);
+			}
+			for (String branchName : branchNames) {
+				res.put(branchName, heads.get(branchPaths.get(getBranchName(branchName))));
+			}
+			return res;
+		} catch (SVNException e) {
+			throw new EVCSException(e);
+		} finally {
+			sessionPool.release(repository);
+			operation.end();
+		}
+	}
+
+	/**
+	 * Returns last commits of the dirs by a single log request, keyed by repository path. The log is read only until all
+	 * of them are found.
+	 */
+	private Map<String, VCSCommit> logHeadCommits(SVNRepository repository, Collection<String> dirs, long startRevision)
+			throws SVNException {
+		final Map<String, VCSCommit> res = new HashMap<>();
+		if (dirs.isEmpty()) {
+			return res;
+		}
+		final Set<String> pathsToResolve = new HashSet<>();
+		for (String dir : dirs) {
+			pathsToResolve.add(StringUtils.removeEnd(repository.getRepositoryPath(dir), "/"));
+		}
+		try {
+			SVNOperation.repositoryCall();
+			repository.log(dirs.toArray(new String[dirs.size()]), startRevision, 0 /* to the first commit */, true,
+					false, 0 /* limit */, logEntry -> {
+				for (Iterator<String> it = pathsToResolve.iterator(); it.hasNext();) {
+					String branchPath = it.next();
+					if (isBranchChanged(branchPath, logEntry)) {
+						res.put(branchPath, svnLogEntryToVCSCommit(logEntry));
+						it.remove();
+					}
+				}
+				if (pathsToResolve.isEmpty()) {
+					SVNErrorManager.cancel("all head commits are found", SVNLogType.CLIENT);
+				}
+			});
+		} catch (SVNCancelException e) {
+			// all head commits are found, the rest of the log is not read. The connection is left in the middle of the
+			// response, so it is closed and the session reconnects on next use
+			repository.closeSession();
+		}
+		return res;
+	}
+
+	/**
+	 * Returns the dirs which exist at the revision, checked by listing their parent dirs.
+	 */
+	private List<String> getExistingDirs(SVNRepository repository, Collection<String> dirs, long revision)
+			throws SVNException {
+		Map<String, Set<String>> children = new HashMap<>();
+		List<String> res = new ArrayList<>();
+		for (String dir : dirs) {
+			String path = StringUtils.removeEnd(dir, "/");
+			String parent = SVNPathUtil.removeTail(path);
+			Set<String> names = children.get(parent);
+			if (names == null) {
+				names = new HashSet<>();
+				List<SVNDirEntry> entries = new ArrayList<>();
+				try {
+					SVNOperation.repositoryCall();
+					repository.getDir(parent, revision, null, SVNDirEntry.DIRENT_KIND, entries);
+				} catch (SVNException e) {
+					if (e.getErrorMessage().getErrorCode().getCode() != SVN_FILE_NOT_FOUND_ERROR_CODE) {
+						throw e;
+					}
+				}
+				for (SVNDirEntry entry : entries) {
+					if (entry.getKind() == SVNNodeKind.DIR) {
+						names.add(entry.getName());
+					}
+				}
+				children.put(parent, names);
+			}
+			if (names.contains(SVNPathUtil.tail(path))) {
+				res.add(dir);
+			}
+		}
+		return res;
+	}
+
+	private boolean isBranchChanged(String branchPath, SVNLogEntry logEntry) {
+		for (SVNLogEntryPath entryPath : logEntry.getChangedPaths().values()) {
+			String changedPath = entryPath.getPath();
+			if (changedPath.equals(branchPath) || changedPath.startsWith(branchPath + "/")) {
+				return true;
+			}
+			// copy, replacement or removal of a parent dir
+			if (branchPath.startsWith(changedPath + "/") && entryPath.getType() != SVNLogEntryPath.TYPE_MODIFIED) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	@Override
 	public String toString() {
 		return "SVNVCS [url=" + repo.getRepoUrl() + "]";
@@ -563,17 +1654,29 @@ public class SVNVCS implements IVCS {
 
 	@Override
 	public Boolean fileExists(String branchName, String filePath) {
+		SVNOperation operation = startOperation("fileExists");
 		try {
-			SVNNodeKind nodeKind = repository.checkPath(
-					new File(getBranchName(branchName), filePath).getPath().replace("\\", "/") ,  -1 );
-			return nodeKind == SVNNodeKind.FILE;
+			return fileExists(branchName, filePath, -1);
 		} catch (SVNException e) {
 			throw new EVCSException(e);
+		} finally {
+			operation.end();
+		}
+	}
+
+	boolean fileExists(String branchName, String filePath, long revision) throws SVNException {
+		SVNRepository repository = sessionPool.lease();
+		try {
+			SVNOperation.repositoryCall();
+			return repository.checkPath(getBranchFilePath(branchName, filePath), revision) == SVNNodeKind.FILE;
+		} finally {
+			sessionPool.release(repository);
 		}
 	}
 	
 	@Override
 	public VCSTag createTag(String branchName, String tagName, String tagMessage, String revisionToTag) throws EVCSTagExists {
+		SVNOperation operation = startOperation("createTag");
 		try {
 			SVNURL srcURL = getBranchUrl(branchName);
 			SVNURL dstURL = SVNURL.parseURIEncoded(repoUrl + TAGS_PATH + tagName);
@@ -583,10 +1686,23 @@ public class SVNVCS implements IVCS {
 					new SVNCopySource(SVNRevision.HEAD, SVNRevision.create(copyFromEntry.getRevision()), srcURL) :
 					new SVNCopySource(SVNRevision.parse(revisionToTag), SVNRevision.parse(revisionToTag), srcURL);
 
-			clientManager.getCopyClient().doCopy(new SVNCopySource[] {copySource}, dstURL, 
-			        false, false, true, tagMessage, null);
+			SVNClientManager clientManager = clientManagers.lease();
+			try {
+				SVNOperation.repositoryCall();
+				clientManager.getCopyClient().doCopy(new SVNCopySource[] {copySource}, dstURL,
+						false, false, true, tagMessage, null);
+			} finally {
+				clientManagers.release(clientManager);
+			}
 
-			SVNDirEntry entry = repository.info(TAGS_PATH + tagName, -1);
+			SVNDirEntry entry;
+			SVNRepository repository = sessionPool.lease();
+			try {
+				SVNOperation.repositoryCall();
+				entry = repository.info(TAGS_PATH + tagName, -1);
+			} finally {
+				sessionPool.release(repository);
+			}
 
 			return new VCSTag(tagName, tagMessage, entry.getAuthor(), svnLogEntryToVCSCommit(copyFromEntry));
 		} catch (SVNException e) {
@@ -594,71 +1710,399 @@ public class SVNVCS implements IVCS {
 				throw new EVCSTagExists(e);
 			} 
 			throw new EVCSException(e);
+		} finally {
+			branchesCache.invalidate();
+			operation.end();
 		}
 	}
 	
+	/**
+	 * Creates all tags in a single commit, so either all of them are created or none. Returns tags in the order of
+	 * provided copies. Tagged commits are read by a single log request per source branch. As {@link #createTag}, fails
+	 * if the tags dir does not exist.
+	 */
+	public List<VCSTag> createTags(List<SVNBranchCopy> tags, String tagMessage) throws EVCSTagExists {
+		if (tags.isEmpty()) {
+			return new ArrayList<>();
+		}
+		SVNOperation operation = startOperation("createTags");
+		SVNRepository repository = sessionPool.lease();
+		try {
+			SVNRemoteCommit commit = new SVNRemoteCommit(repository);
+			List<SVNLogEntry> copyFromEntries = getCopyFromEntries(repository, tags, commit.getBaseRevision());
+			List<SVNRemoteCommit.Copy> copies = new ArrayList<>();
+			for (int i = 0; i < tags.size(); i++) {
+				SVNBranchCopy tag = tags.get(i);
+				copies.add(new SVNRemoteCommit.Copy(getBranchPath(tag.getSrcBranchName()), tag.getRevision() == null
+						? copyFromEntries.get(i).getRevision()
+						: Long.parseLong(tag.getRevision()), TAGS_PATH + tag.getName()));
+			}
+			// tags dir is not created, as by createTag()
+			SVNCommitInfo commitInfo = commit.copy(copies, false, tagMessage);
+			List<VCSTag> res = new ArrayList<>();
+			for (int i = 0; i < tags.size(); i++) {
+				res.add(new VCSTag(tags.get(i).getName(), tagMessage, commitInfo.getAuthor(),
+						svnLogEntryToVCSCommit(copyFromEntries.get(i))));
+			}
+			return res;
+		} catch (SVNException e) {
+			if (e.getErrorMessage().getErrorCode().getCode() == SVN_ITEM_EXISTS_ERROR_CODE) {
+				throw new EVCSTagExists(e);
+			}
+			throw new EVCSException(e);
+		} finally {
+			sessionPool.release(repository);
+			branchesCache.invalidate();
+			operation.end();
+		}
+	}
+
+	/**
+	 * Creates all branches in a single commit, so either all of them are created or none. Returns the commit. As
+	 * {@link #createBranch}, creates missing parent dirs.
+	 */
+	public VCSCommit createBranches(List<SVNBranchCopy> branches, String commitMessage) throws EVCSBranchExists {
+		if (branches.isEmpty()) {
+			return VCSCommit.EMPTY;
+		}
+		SVNOperation operation = startOperation("createBranches");
+		SVNRepository repository = sessionPool.lease();
+		try {
+			SVNRemoteCommit commit = new SVNRemoteCommit(repository);
+			List<SVNRemoteCommit.Copy> copies = new ArrayList<>();
+			for (SVNBranchCopy branch : branches) {
+				dirFirstCommits.remove(getBranchName(branch.getName()));
+				copies.add(new SVNRemoteCommit.Copy(getBranchPath(branch.getSrcBranchName()), branch.getRevision() == null
+						? commit.getBaseRevision()
+						: Long.parseLong(branch.getRevision()), getBranchPath(branch.getName())));
+			}
+			// parent dirs are created, as by createBranch()
+			SVNCommitInfo commitInfo = commit.copy(copies, true, commitMessage);
+			return new VCSCommit(Long.toString(commitInfo.getNewRevision()), commitMessage, commitInfo.getAuthor());
+		} catch (SVNException e) {
+			if (e.getErrorMessage().getErrorCode().getCode() == SVN_ITEM_EXISTS_ERROR_CODE) {
+				throw new EVCSBranchExists(e);
+			}
+			throw new EVCSException(e);
+		} finally {
+			sessionPool.release(repository);
+			branchesCache.invalidate();
+			operation.end();
+		}
+	}
+
+	private String getBranchPath(String branchName) {
+		return StringUtils.removeEnd(getBranchName(branchName), "/");
+	}
+
+	/**
+	 * Returns last commits of the source branches made not later than the copy revisions, HEAD copies are resolved at
+	 * the head revision. Commits are read on the session leased by the caller, so no other session is waited for.
+	 */
+	private List<SVNLogEntry> getCopyFromEntries(SVNRepository repository, List<SVNBranchCopy> copies,
+			long headRevision) throws SVNException {
+		Map<String, NavigableSet<Long>> revisions = new LinkedHashMap<>();
+		for (SVNBranchCopy copy : copies) {
+			revisions.computeIfAbsent(getBranchName(copy.getSrcBranchName()), branchName -> new TreeSet<>())
+					.add(copy.getRevision() == null ? headRevision : Long.parseLong(copy.getRevision()));
+		}
+		Map<String, Map<Long, SVNLogEntry>> entries = new HashMap<>();
+		for (Map.Entry<String, NavigableSet<Long>> branchRevisions : revisions.entrySet()) {
+			entries.put(branchRevisions.getKey(),
+					logCopyFromEntries(repository, branchRevisions.getKey(), branchRevisions.getValue()));
+		}
+		List<SVNLogEntry> res = new ArrayList<>();
+		for (SVNBranchCopy copy : copies) {
+			SVNLogEntry entry = entries.get(getBranchName(copy.getSrcBranchName()))
+					.get(copy.getRevision() == null ? headRevision : Long.parseLong(copy.getRevision()));
+			if (entry == null) {
+				throw new EVCSBranchNotFound(getRepoUrl(), getBranchName(copy.getSrcBranchName()));
+			}
+			res.add(entry);
+		}
+		return res;
+	}
+
+	/**
+	 * Returns last commits of the branch made not later than each of the revisions. Revisions not answered by the
+	 * commit index are resolved by a single log request from the latest of them, read until the earliest one is
+	 * resolved. Revisions the branch does not exist at are absent in the result.
+	 */
+	private Map<Long, SVNLogEntry> logCopyFromEntries(SVNRepository repository, String branchName,
+			NavigableSet<Long> revisions) throws SVNException {
+		final Map<Long, SVNLogEntry> res = new HashMap<>();
+		final NavigableSet<Long> pending = new TreeSet<>();
+		for (Long revision : revisions) {
+			List<SVNLogEntry> history = getIndexedHistory(branchName, revision, 1);
+			if (history != null && !history.isEmpty()) {
+				res.put(revision, history.get(0));
+			} else {
+				pending.add(revision);
+			}
+		}
+		if (pending.isEmpty()) {
+			return res;
+		}
+		try {
+			SVNOperation.repositoryCall();
+			repository.log(new String[] {branchName}, pending.last(), 0 /* to the first commit */, true, true,
+					0 /* limit */, logEntry -> {
+				// entries come from the latest one, so the entry is the last commit for all pending revisions after it
+				for (Iterator<Long> it = pending.tailSet(logEntry.getRevision(), true).iterator(); it.hasNext();) {
+					res.put(it.next(), logEntry);
+					it.remove();
+				}
+				if (pending.isEmpty()) {
+					SVNErrorManager.cancel("all copied commits are found", SVNLogType.CLIENT);
+				}
+			});
+		} catch (SVNCancelException e) {
+			// the connection is left in the middle of the response, the session reconnects on next use
+			repository.closeSession();
+		} catch (SVNException e) {
+			SVNOperation.repositoryCall();
+			if (repository.checkPath(branchName, pending.last()) != SVNNodeKind.NONE) {
+				throw e;
+			}
+		}
+		return res;
+	}
+
 	SVNLogEntry revToSVNEntry(String branchName, Long rev) throws SVNException {
-		SVNDirEntry info = repository.info(branchName, rev);
-		@SuppressWarnings("unchecked")
-		Collection<SVNLogEntry> entries = repository.log(new String[] {branchName}, null, info.getRevision(), info.getRevision(), true, true);
-		if (entries != null) {
-			return entries.iterator().next();
+		List<SVNLogEntry> history = getIndexedHistory(branchName, rev, 1);
+		if (history != null) {
+			return history.get(0);
+		}
+		SVNRepository repository = sessionPool.lease();
+		try {
+			SVNOperation.repositoryCall();
+			SVNDirEntry info = repository.info(branchName, rev);
+			if (info == null) {
+				return null;
+			}
+			SVNOperation.repositoryCall();
+			@SuppressWarnings("unchecked")
+			Collection<SVNLogEntry> entries = repository.log(new String[] {branchName}, null, info.getRevision(), info.getRevision(), true, true);
+			if (entries != null) {
+				return entries.iterator().next();
+			}
+			return null;
+		} finally {
+			sessionPool.release(repository);
 		}
-		return null;
 	}
 	
 	@Override
 	public List<VCSTag> getTags() {
+		SVNOperation operation = startOperation("getTags");
 		try {
 			return getTags(null);
 		} catch (SVNException e) {
 			throw new EVCSException(e);
+		} finally {
+			operation.end();
 		}
 	}
 
 	@Override
 	public void removeTag(String tagName) {
+		SVNOperation operation = startOperation("removeTag");
+		SVNClientManager clientManager = clientManagers.lease();
 		try {
+			SVNOperation.repositoryCall();
 			clientManager
 					.getCommitClient()
 					.doDelete(new SVNURL[] { SVNURL.parseURIEncoded(repoUrl + TAGS_PATH + tagName) }, null);
 		} catch (SVNException e) {
 			throw new EVCSException(e);
+		} finally {
+			clientManagers.release(clientManager);
+			branchesCache.invalidate();
+			operation.end();
 		}
 	}
 
 	@Override
 	public void checkout(String branchName, String targetPath, String revision) {
+		if (exportCheckouts) {
+			export(branchName, targetPath, revision);
+			return;
+		}
+		SVNOperation operation = startOperation("checkout");
 		try {
 			checkout(getBranchUrl(branchName), new File(targetPath), revision);
 		} catch (SVNException e) {
 			throw new EVCSException(e);
+		} finally {
+			operation.end();
+		}
+	}
+
+	/**
+	 * Writes the branch tree at the revision (null for HEAD) to the target dir without working copy metadata and
+	 * returns the exported revision. Files are written by {@link #getReadThreadsCount()} threads. If the dir holds a
+	 * previous export of the same branch then only files changed since the exported revision are rewritten.
+	 */
+	public String export(String branchName, String targetPath, String revision) {
+		SVNOperation operation = startOperation("export");
+		long startedAt = System.nanoTime();
+		try {
+			long res = new SVNExporter(this, branchName, new File(targetPath), readThreadsCount, exportExternals)
+					.export(parseRevision(revision));
+			metricsListener.workingCopyUpdated("export", System.nanoTime() - startedAt);
+			return Long.toString(res);
+		} catch (SVNException e) {
+			throw new EVCSException(e);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			operation.end();
 		}
 	}
 	
+	List<VCSTag> getTags(SVNTagIndex index, long revision) throws SVNException {
+		SVNRepository repository = sessionPool.lease();
+		try {
+			return index.getTags(repository, null, revision);
+		} finally {
+			sessionPool.release(repository);
+		}
+	}
+
 	List<VCSTag> getTags(String onRevision) throws SVNException {
-		List<VCSTag> res = new ArrayList<>();
-		@SuppressWarnings("unchecked")
-		Collection<SVNDirEntry> dirEntries = repository.getDir(TAGS_PATH, -1 , null, (Collection<SVNDirEntry>) null);
-		for (SVNDirEntry dirEntry : dirEntries) {
-			long tagCopyFrom = 0;
-			
-			SVNLogEntry tagEntry = getDirFirstCommit(TAGS_PATH + dirEntry.getName());
-			for (SVNLogEntryPath entryPath : tagEntry.getChangedPaths().values()) {
-				tagCopyFrom = entryPath.getCopyRevision();
-			}
-			
-			if (onRevision == null || tagCopyFrom == Long.parseLong(onRevision)) {
-				SVNProperties props = repository.getRevisionProperties(tagCopyFrom, null);
-				res.add(new VCSTag(dirEntry.getName(), tagEntry.getMessage(), tagEntry.getAuthor(), new VCSCommit(Long.toString(tagCopyFrom),
-						props.getStringValue(SVNRevisionProperty.LOG), props.getStringValue(SVNRevisionProperty.AUTHOR))));
+		SVNRepository repository = sessionPool.lease();
+		try {
+			return tagIndex.getTags(repository, onRevision == null ? null : Long.parseLong(onRevision),
+					branchesCache.getLatestRevision(this::getLatestRevision));
+		} finally {
+			sessionPool.release(repository);
+		}
+	}
+
+	/**
+	 * Removes branches in a single commit or in several ones if there are more than
+	 * {@link #getMaxDeletesPerCommit()} branches. Returns the commits made.
+	 */
+	public List<VCSCommit> deleteBranches(Collection<String> branchNames, String commitMessage) {
+		SVNOperation operation = startOperation("deleteBranches");
+		try {
+			List<SVNURL> urls = new ArrayList<>();
+			for (String branchName : branchNames) {
+				urls.add(getBranchUrl(branchName));
+				dirFirstCommits.remove(getBranchName(branchName));
 			}
+			return delete(urls, commitMessage);
+		} catch (SVNException e) {
+			throw new EVCSException(e);
+		} finally {
+			branchesCache.invalidate();
+			operation.end();
+		}
+	}
+
+	/**
+	 * Removes tags in a single commit or in several ones if there are more than {@link #getMaxDeletesPerCommit()}
+	 * tags. Returns the commits made.
+	 */
+	public List<VCSCommit> removeTags(Collection<String> tagNames, String commitMessage) {
+		SVNOperation operation = startOperation("removeTags");
+		try {
+			List<SVNURL> urls = new ArrayList<>();
+			for (String tagName : tagNames) {
+				urls.add(SVNURL.parseURIEncoded(repoUrl + TAGS_PATH + tagName));
+			}
+			return delete(urls, commitMessage);
+		} catch (SVNException e) {
+			throw new EVCSException(e);
+		} finally {
+			branchesCache.invalidate();
+			operation.end();
+		}
+	}
+
+	/**
+	 * Removes files of the branch in a single commit or in several ones if there are more than
+	 * {@link #getMaxDeletesPerCommit()} files. Returns the commits made.
+	 */
+	public List<VCSCommit> removeFiles(String branchName, Collection<String> filePaths, String commitMessage) {
+		SVNOperation operation = startOperation("removeFiles");
+		try {
+			SVNURL branchUrl = getBranchUrl(branchName);
+			List<SVNURL> urls = new ArrayList<>();
+			for (String filePath : filePaths) {
+				urls.add(branchUrl.appendPath(filePath, true));
+			}
+			return delete(urls, commitMessage);
+		} catch (SVNException e) {
+			throw new EVCSException(e);
+		} finally {
+			operation.end();
+		}
+	}
+
+	/**
+	 * Removes any mix of files, branches and tags given by paths relative to the repository url, e.g.
+	 * {@code branches/feature} or {@code tags/1.0}, in a single commit or in several ones if there are more than
+	 * {@link #getMaxDeletesPerCommit()} paths. Returns the commits made.
+	 */
+	public List<VCSCommit> removePaths(Collection<String> paths, String commitMessage) {
+		SVNOperation operation = startOperation("removePaths");
+		try {
+			List<SVNURL> urls = new ArrayList<>();
+			for (String path : paths) {
+				String dir = StringUtils.removeEnd(StringUtils.removeStart(path.replace("\\", "/"), "/"), "/");
+				urls.add(SVNURL.parseURIEncoded(repoUrl + dir));
+				dirFirstCommits.keySet().removeIf(key -> key.equals(dir + "/") || key.startsWith(dir + "/"));
+			}
+			return delete(urls, commitMessage);
+		} catch (SVNException e) {
+			throw new EVCSException(e);
+		} finally {
+			branchesCache.invalidate();
+			operation.end();
+		}
+	}
+
+	/**
+	 * Removes urls by chunks of {@link #getMaxDeletesPerCommit()}, each chunk is a single commit. Duplicates and urls
+	 * under other removed ones are skipped.
+	 */
+	private List<VCSCommit> delete(List<SVNURL> urls, String commitMessage) throws SVNException {
+		// parents go right before their children
+		Map<String, SVNURL> sorted = new TreeMap<>(Comparator.comparing((String path) -> path.replace('/', '\0')));
+		for (SVNURL url : urls) {
+			sorted.put(StringUtils.removeEnd(url.getPath(), "/"), url);
+		}
+		List<SVNURL> toDelete = new ArrayList<>();
+		String removedPath = null;
+		for (Map.Entry<String, SVNURL> url : sorted.entrySet()) {
+			if (removedPath == null || !url.getKey().startsWith(removedPath + "/")) {
+				toDelete.add(url.getValue());
+				removedPath = url.getKey();
+			}
+		}
+		List<VCSCommit> res = new ArrayList<>();
+		int chunkSize = Math.max(1, maxDeletesPerCommit);
+		for (int from = 0; from < toDelete.size(); from += chunkSize) {
+			List<SVNURL> chunk = toDelete.subList(from, Math.min(from + chunkSize, toDelete.size()));
+			SVNCommitInfo commitInfo;
+			SVNClientManager clientManager = clientManagers.lease();
+			try {
+				SVNOperation.repositoryCall();
+				commitInfo = clientManager
+						.getCommitClient()
+						.doDelete(chunk.toArray(new SVNURL[chunk.size()]), commitMessage);
+			} finally {
+				clientManagers.release(clientManager);
+			}
+			res.add(new VCSCommit(Long.toString(commitInfo.getNewRevision()), commitMessage, commitInfo.getAuthor()));
 		}
 		return res;
 	}
 
 	@Override
 	public List<VCSTag> getTagsOnRevision(String revision) {
+		SVNOperation operation = startOperation("getTagsOnRevision");
 		try {
 			return getTags(revision);
 		} catch (SVNException e) {
@@ -666,6 +2110,18 @@ public class SVNVCS implements IVCS {
 				return new ArrayList<>();
 			}
 			throw new EVCSException(e);
+		} finally {
+			operation.end();
+		}
+	}
+
+	private static class DirFirstCommit {
+		final SVNLogEntry entry;
+		final long validatedRevision;
+
+		DirFirstCommit(SVNLogEntry entry, long validatedRevision) {
+			this.entry = entry;
+			this.validatedRevision = validatedRevision;
 		}
 	}
 }
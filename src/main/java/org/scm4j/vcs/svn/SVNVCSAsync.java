@@ -0,0 +1,189 @@
+package org.scm4j.vcs.svn;
+
+import org.scm4j.vcs.api.VCSCommit;
+import org.scm4j.vcs.api.VCSMergeResult;
+import org.scm4j.vcs.api.VCSTag;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous facade of {@link SVNVCS}. Each call is executed on the provided executor, by default on virtual threads
+ * if the JVM supports them or on a shared pool of daemon threads otherwise. Count of calls executed concurrently is
+ * limited for the whole repository and, optionally, for each operation. Calls over the limit are queued and submitted
+ * to the executor when a running call completes, so a fan-out over many repositories neither opens more sessions nor
+ * holds more executor threads than the limits allow.
+ */
+public class SVNVCSAsync {
+
+	public static final int DEFAULT_MAX_CONCURRENT_CALLS = 8;
+
+	public enum Operation {
+		GET_HEAD_COMMIT, LOG, GET_FILE_CONTENT, GET_BRANCHES, GET_TAGS, CREATE_TAG, MERGE, PREVIEW_MERGE
+	}
+
+	private static volatile Executor defaultExecutor;
+
+	private final SVNVCS vcs;
+	private final Executor executor;
+	private final int maxConcurrentCalls;
+	private final Map<Operation, Integer> operationLimits = new EnumMap<>(Operation.class);
+	private final Map<Operation, Integer> runningOperationCalls = new EnumMap<>(Operation.class);
+	private final Deque<PendingCall> pendingCalls = new ArrayDeque<>();
+	private int runningCalls;
+
+	public SVNVCSAsync(SVNVCS vcs) {
+		this(vcs, getDefaultExecutor(), DEFAULT_MAX_CONCURRENT_CALLS);
+	}
+
+	public SVNVCSAsync(SVNVCS vcs, Executor executor, int maxConcurrentCalls) {
+		this.vcs = vcs;
+		this.executor = executor;
+		this.maxConcurrentCalls = Math.max(1, maxConcurrentCalls);
+	}
+
+	public SVNVCS getVCS() {
+		return vcs;
+	}
+
+	/**
+	 * Limits count of concurrent calls of the operation. Applies to calls started after this method returns.
+	 */
+	public void setMaxConcurrentCalls(Operation operation, int maxConcurrentCalls) {
+		synchronized (this) {
+			operationLimits.put(operation, Math.max(1, maxConcurrentCalls));
+		}
+		dispatch();
+	}
+
+	public CompletableFuture<VCSCommit> getHeadCommit(String branchName) {
+		return call(Operation.GET_HEAD_COMMIT, () -> vcs.getHeadCommit(branchName));
+	}
+
+	public CompletableFuture<List<VCSCommit>> log(String branchName, int limit) {
+		return call(Operation.LOG, () -> vcs.log(branchName, limit));
+	}
+
+	public CompletableFuture<String> getFileContent(String branchName, String filePath, String revision) {
+		return call(Operation.GET_FILE_CONTENT, () -> vcs.getFileContent(branchName, filePath, revision));
+	}
+
+	public CompletableFuture<Set<String>> getBranches(String path) {
+		return call(Operation.GET_BRANCHES, () -> vcs.getBranches(path));
+	}
+
+	public CompletableFuture<List<VCSTag>> getTags() {
+		return call(Operation.GET_TAGS, vcs::getTags);
+	}
+
+	public CompletableFuture<VCSTag> createTag(String branchName, String tagName, String tagMessage,
+			String revisionToTag) {
+		return call(Operation.CREATE_TAG, () -> vcs.createTag(branchName, tagName, tagMessage, revisionToTag));
+	}
+
+	public CompletableFuture<List<VCSTag>> createTags(List<SVNBranchCopy> tags, String tagMessage) {
+		return call(Operation.CREATE_TAG, () -> vcs.createTags(tags, tagMessage));
+	}
+
+	public CompletableFuture<VCSMergeResult> merge(String srcBranchName, String dstBranchName, String commitMessage) {
+		return call(Operation.MERGE, () -> vcs.merge(srcBranchName, dstBranchName, commitMessage));
+	}
+
+	public CompletableFuture<VCSMergeResult> previewMerge(String srcBranchName, String dstBranchName) {
+		return call(Operation.PREVIEW_MERGE, () -> vcs.previewMerge(srcBranchName, dstBranchName));
+	}
+
+	private <T> CompletableFuture<T> call(Operation operation, Supplier<T> supplier) {
+		CompletableFuture<T> res = new CompletableFuture<>();
+		synchronized (this) {
+			pendingCalls.add(new PendingCall(operation, () -> {
+				try {
+					res.complete(supplier.get());
+				} catch (Throwable e) {
+					res.completeExceptionally(e);
+				}
+			}, res));
+		}
+		dispatch();
+		return res;
+	}
+
+	/**
+	 * Submits queued calls which fit into the limits, in the order they were made.
+	 */
+	private void dispatch() {
+		List<PendingCall> toStart = new ArrayList<>();
+		synchronized (this) {
+			for (Iterator<PendingCall> it = pendingCalls.iterator(); it.hasNext() && runningCalls < maxConcurrentCalls;) {
+				PendingCall call = it.next();
+				Integer limit = operationLimits.get(call.operation);
+				int running = runningOperationCalls.getOrDefault(call.operation, 0);
+				if (limit == null || running < limit) {
+					it.remove();
+					runningCalls++;
+					runningOperationCalls.put(call.operation, running + 1);
+					toStart.add(call);
+				}
+			}
+		}
+		for (PendingCall call : toStart) {
+			try {
+				executor.execute(() -> {
+					try {
+						call.task.run();
+					} finally {
+						completed(call);
+					}
+				});
+			} catch (RuntimeException e) {
+				call.future.completeExceptionally(e);
+				completed(call);
+			}
+		}
+	}
+
+	private void completed(PendingCall call) {
+		synchronized (this) {
+			runningCalls--;
+			runningOperationCalls.merge(call.operation, -1, Integer::sum);
+		}
+		dispatch();
+	}
+
+	static Executor getDefaultExecutor() {
+		if (defaultExecutor == null) {
+			synchronized (SVNVCSAsync.class) {
+				if (defaultExecutor == null) {
+					defaultExecutor = createDefaultExecutor();
+				}
+			}
+		}
+		return defaultExecutor;
+	}
+
+	private static class PendingCall {
+		final Operation operation;
+		final Runnable task;
+		final CompletableFuture<?> future;
+
+		PendingCall(Operation operation, Runnable task, CompletableFuture<?> future) {
+			this.operation = operation;
+			this.task = task;
+			this.future = future;
+		}
+	}
+
+	private static Executor createDefaultExecutor() {
+		try {
+			// Java 21+
+			return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(runnable -> {
+				Thread res = new Thread(runnable, "svnvcs-async");
+				res.setDaemon(true);
+				return res;
+			});
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package org.scm4j.vcs.svn;
+
+import org.tmatesoft.svn.core.SVNException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of daemon worker threads shared by parallel reads, diffs and exports of an {@link SVNVCS}. Idle threads
+ * exit after the keep alive time. Tasks of a batch are run with the parallelism requested by the caller, the calling
+ * thread takes part in the batch too, so a batch completes even if all workers are busy.
+ */
+class SVNWorkers {
+
+	interface Task<T> {
+		T call() throws SVNException;
+	}
+
+	static final long KEEP_ALIVE_MILLIS = 60000;
+
+	private final ThreadPoolExecutor executor;
+
+	SVNWorkers(int maxThreads) {
+		executor = new ThreadPoolExecutor(maxThreads, maxThreads, KEEP_ALIVE_MILLIS, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(), runnable -> {
+					Thread res = new Thread(runnable, "svnvcs-worker");
+					res.setDaemon(true);
+					return res;
+				});
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	synchronized int getMaxThreads() {
+		return executor.getMaximumPoolSize();
+	}
+
+	synchronized void setMaxThreads(int maxThreads) {
+		maxThreads = Math.max(1, maxThreads);
+		if (maxThreads > executor.getMaximumPoolSize()) {
+			executor.setMaximumPoolSize(maxThreads);
+			executor.setCorePoolSize(maxThreads);
+		} else {
+			executor.setCorePoolSize(maxThreads);
+			executor.setMaximumPoolSize(maxThreads);
+		}
+	}
+
+	/**
+	 * Submits the task attached to the current operation.
+	 */
+	<T> Future<T> submit(final Task<T> task) {
+		final SVNOperation operation = SVNOperation.current();
+		return executor.submit(() -> {
+			operation.attach();
+			try {
+				return task.call();
+			} finally {
+				operation.detach();
+			}
+		});
+	}
+
+	void execute(Runnable task) {
+		executor.execute(task);
+	}
+
+	/**
+	 * Runs the tasks, at most parallelism of them at once, and returns their results in the order of the tasks. The
+	 * first failure stops taking next tasks and is rethrown once the running ones complete.
+	 */
+	<T> List<T> invokeAll(final List<? extends Task<T>> tasks, int parallelism) throws SVNException {
+		final Object[] results = new Object[tasks.size()];
+		final AtomicInteger next = new AtomicInteger();
+		int lanes = Math.min(Math.max(1, parallelism), tasks.size());
+		List<Future<?>> futures = new ArrayList<>();
+		List<AtomicBoolean> started = new ArrayList<>();
+		for (int i = 1; i < lanes; i++) {
+			final AtomicBoolean laneStarted = new AtomicBoolean();
+			started.add(laneStarted);
+			futures.add(submit(() -> {
+				if (laneStarted.compareAndSet(false, true)) {
+					runLane(tasks, results, next);
+				}
+				return null;
+			}));
+		}
+		Throwable failure = null;
+		try {
+			runLane(tasks, results, next);
+		} catch (SVNException | RuntimeException | Error e) {
+			failure = e;
+		}
+		for (int i = 0; i < futures.size(); i++) {
+			// lanes not started yet have nothing to do
+			if (started.get(i).compareAndSet(false, true)) {
+				futures.get(i).cancel(false);
+				continue;
+			}
+			try {
+				futures.get(i).get();
+			} catch (ExecutionException e) {
+				failure = failure == null ? e.getCause() : failure;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			}
+		}
+		if (failure != null) {
+			return rethrow(failure);
+		}
+		List<T> res = new ArrayList<>(results.length);
+		for (Object result : results) {
+			@SuppressWarnings("unchecked")
+			T typed = (T) result;
+			res.add(typed);
+		}
+		return res;
+	}
+
+	private <T> void runLane(List<? extends Task<T>> tasks, Object[] results, AtomicInteger next)
+			throws SVNException {
+		int index;
+		while ((index = next.getAndIncrement()) < tasks.size()) {
+			try {
+				results[index] = tasks.get(index).call();
+			} catch (SVNException | RuntimeException | Error e) {
+				next.set(tasks.size());
+				throw e;
+			}
+		}
+	}
+
+	private <T> T rethrow(Throwable e) throws SVNException {
+		if (e instanceof SVNException) {
+			throw (SVNException) e;
+		}
+		if (e instanceof RuntimeException) {
+			throw (RuntimeException) e;
+		}
+		if (e instanceof Error) {
+			throw (Error) e;
+		}
+		throw new RuntimeException(e);
+	}
+}
@@ -0,0 +1,225 @@
+package org.scm4j.vcs.svn;
+
+import org.scm4j.vcs.api.workingcopy.IVCSLockedWorkingCopy;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNURL;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps locked working copies switched to a branch after use, so the next operation on the same branch starts from a
+ * working copy which needs an update only. Up to the per-branch count of warm copies are kept for each branch, least
+ * recently used ones are unlocked when the total count is exceeded. Idle warm copies may be updated in background when
+ * the repository latest revision changes.
+ */
+class SVNWorkingCopyPool {
+
+	interface Locker {
+		IVCSLockedWorkingCopy lock() throws Exception;
+	}
+
+	interface Updater {
+		long getLatestRevision() throws SVNException;
+
+		void update(File folder) throws SVNException;
+	}
+
+	private final LinkedList<WarmCopy> idleCopies = new LinkedList<>(); // most recently used first
+	private int maxPerBranch;
+	private int maxTotal;
+	private ScheduledExecutorService updateExecutor;
+	private long updatedRevision = -1;
+
+	synchronized int getMaxPerBranch() {
+		return maxPerBranch;
+	}
+
+	synchronized int getMaxTotal() {
+		return maxTotal;
+	}
+
+	void setLimits(int maxPerBranch, int maxTotal) {
+		List<IVCSLockedWorkingCopy> evicted;
+		synchronized (this) {
+			this.maxPerBranch = Math.max(0, maxPerBranch);
+			this.maxTotal = Math.max(0, maxTotal);
+			evicted = evict();
+		}
+		unlock(evicted);
+	}
+
+	/**
+	 * Leases a warm copy of the branch if any, waiting for it if it is being updated in background, otherwise locks a
+	 * new one. Null url means the working copy should not be kept after use.
+	 */
+	Lease lease(SVNURL url, Locker locker) throws Exception {
+		if (url != null) {
+			synchronized (this) {
+				while (true) {
+					boolean updating = false;
+					for (Iterator<WarmCopy> it = idleCopies.iterator(); it.hasNext();) {
+						WarmCopy warmCopy = it.next();
+						if (warmCopy.url.equals(url)) {
+							if (!warmCopy.updating) {
+								it.remove();
+								return new Lease(url, warmCopy.workingCopy);
+							}
+							updating = true;
+						}
+					}
+					if (!updating) {
+						break;
+					}
+					wait();
+				}
+			}
+		}
+		return new Lease(url, locker.lock());
+	}
+
+	void clear() {
+		List<IVCSLockedWorkingCopy> toUnlock = new ArrayList<>();
+		synchronized (this) {
+			for (Iterator<WarmCopy> it = idleCopies.iterator(); it.hasNext();) {
+				WarmCopy warmCopy = it.next();
+				if (!warmCopy.updating) {
+					toUnlock.add(warmCopy.workingCopy);
+					it.remove();
+				}
+			}
+		}
+		unlock(toUnlock);
+	}
+
+	/**
+	 * Starts checking the latest revision each interval milliseconds and updating idle warm copies when it changes. Zero
+	 * interval stops background updates.
+	 */
+	synchronized void setUpdateInterval(long interval, Updater updater) {
+		if (updateExecutor != null) {
+			updateExecutor.shutdown();
+			updateExecutor = null;
+		}
+		if (interval > 0) {
+			updateExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread res = new Thread(runnable, "svnvcs-wc-update");
+				res.setDaemon(true);
+				return res;
+			});
+			updateExecutor.scheduleWithFixedDelay(() -> updateIdleCopies(updater), interval, interval,
+					TimeUnit.MILLISECONDS);
+		}
+	}
+
+	void updateIdleCopies(Updater updater) {
+		List<WarmCopy> toUpdate = new ArrayList<>();
+		try {
+			long latestRevision = updater.getLatestRevision();
+			synchronized (this) {
+				if (latestRevision == updatedRevision) {
+					return;
+				}
+				updatedRevision = latestRevision;
+				for (WarmCopy warmCopy : idleCopies) {
+					warmCopy.updating = true;
+					toUpdate.add(warmCopy);
+				}
+			}
+		} catch (SVNException e) {
+			// repository is not available, try next time
+			return;
+		}
+		List<IVCSLockedWorkingCopy> failed = new ArrayList<>();
+		for (WarmCopy warmCopy : toUpdate) {
+			try {
+				updater.update(warmCopy.workingCopy.getFolder());
+			} catch (Exception e) {
+				warmCopy.workingCopy.setCorrupted(true);
+				failed.add(warmCopy.workingCopy);
+			}
+			synchronized (this) {
+				warmCopy.updating = false;
+				if (warmCopy.workingCopy.getCorrupted()) {
+					idleCopies.remove(warmCopy);
+				}
+				notifyAll();
+			}
+		}
+		unlock(failed);
+	}
+
+	private void release(SVNURL url, IVCSLockedWorkingCopy workingCopy) {
+		List<IVCSLockedWorkingCopy> toUnlock;
+		synchronized (this) {
+			if (url == null || workingCopy.getCorrupted() || maxPerBranch == 0 || maxTotal == 0) {
+				toUnlock = Collections.singletonList(workingCopy);
+			} else {
+				idleCopies.addFirst(new WarmCopy(url, workingCopy));
+				toUnlock = evict();
+			}
+		}
+		unlock(toUnlock);
+	}
+
+	private List<IVCSLockedWorkingCopy> evict() {
+		List<IVCSLockedWorkingCopy> res = new ArrayList<>();
+		Map<SVNURL, Integer> counts = new HashMap<>();
+		int total = 0;
+		for (Iterator<WarmCopy> it = idleCopies.iterator(); it.hasNext();) {
+			WarmCopy warmCopy = it.next();
+			if (warmCopy.updating) {
+				continue;
+			}
+			int count = counts.merge(warmCopy.url, 1, Integer::sum);
+			if (count > maxPerBranch || ++total > maxTotal) {
+				res.add(warmCopy.workingCopy);
+				it.remove();
+			}
+		}
+		return res;
+	}
+
+	private void unlock(List<IVCSLockedWorkingCopy> workingCopies) {
+		for (IVCSLockedWorkingCopy workingCopy : workingCopies) {
+			try {
+				workingCopy.close();
+			} catch (Exception e) {
+				// lock is released anyway when the process exits
+			}
+		}
+	}
+
+	class Lease implements AutoCloseable {
+		private final SVNURL url;
+		private final IVCSLockedWorkingCopy workingCopy;
+
+		Lease(SVNURL url, IVCSLockedWorkingCopy workingCopy) {
+			this.url = url;
+			this.workingCopy = workingCopy;
+		}
+
+		IVCSLockedWorkingCopy getWorkingCopy() {
+			return workingCopy;
+		}
+
+		@Override
+		public void close() {
+			release(url, workingCopy);
+		}
+	}
+
+	private static class WarmCopy {
+		final SVNURL url;
+		final IVCSLockedWorkingCopy workingCopy;
+		boolean updating;
+
+		WarmCopy(SVNURL url, IVCSLockedWorkingCopy workingCopy) {
+			this.url = url;
+			this.workingCopy = workingCopy;
+		}
+	}
+}
@@ -1,13 +1,24 @@
 package org.scm4j.vcs.svn;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.junit.After;
 import org.junit.Test;
 import org.mockito.Matchers;
 import org.scm4j.vcs.api.IVCS;
+import org.scm4j.vcs.api.VCSChangeListNode;
 import org.scm4j.vcs.api.VCSChangeType;
+import org.scm4j.vcs.api.VCSCommit;
+import org.scm4j.vcs.api.VCSDiffEntry;
+import org.scm4j.vcs.api.VCSMergeResult;
+import org.scm4j.vcs.api.VCSTag;
 import org.scm4j.vcs.api.WalkDirection;
 import org.scm4j.vcs.api.abstracttest.VCSAbstractTest;
+import org.scm4j.vcs.api.exceptions.EVCSBranchNotFound;
 import org.scm4j.vcs.api.exceptions.EVCSException;
+import org.scm4j.vcs.api.exceptions.EVCSFileNotFound;
+import org.scm4j.vcs.api.exceptions.EVCSTagExists;
 import org.scm4j.vcs.api.workingcopy.IVCSRepositoryWorkspace;
 import org.tmatesoft.svn.core.*;
 import org.tmatesoft.svn.core.auth.ISVNProxyManager;
@@ -17,14 +28,29 @@ import org.tmatesoft.svn.core.internal.wc.DefaultSVNOptions;
 import org.tmatesoft.svn.core.io.SVNRepository;
 import org.tmatesoft.svn.core.wc.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 import static org.mockito.Matchers.any;
@@ -152,9 +178,21 @@ public class SVNVCSTest extends VCSAbstractTest {
 		IVCSRepositoryWorkspace mockedRepo = mock(IVCSRepositoryWorkspace.class);
 		svn.setRepo(mockedRepo);
 		doThrow(testCommonException).when(mockedRepo).getVCSLockedWorkingCopy();
+		svn.setUseWorkingCopyForCommits(true);
 		testCommonException(() -> svn.setFileContent("", "", "", ""));
 		testCommonException(() -> svn.merge("", "", ""));
-		testCommonException(() -> svn.getBranchesDiff("", ""));
+	}
+
+	@Test
+	public void testGetBranchesDiffWithoutWorkingCopy() throws Exception {
+		vcs.createBranch(null, NEW_BRANCH, "branch created");
+		vcs.setFileContent(NEW_BRANCH, "file.txt", "content", "file added");
+		IVCSRepositoryWorkspace mockedRepo = mock(IVCSRepositoryWorkspace.class);
+		svn.setRepo(mockedRepo);
+		List<VCSDiffEntry> diff = vcs.getBranchesDiff(NEW_BRANCH, null);
+		assertEquals(1, diff.size());
+		assertEquals(VCSChangeType.ADD, diff.get(0).getChangeType());
+		verify(mockedRepo, never()).getVCSLockedWorkingCopy();
 	}
 
 	private void testSVNException(Runnable toTest) {
@@ -236,6 +274,31 @@ public class SVNVCSTest extends VCSAbstractTest {
 		}
 	}
 
+	@Test
+	public void testClientManagerCallsNotSerialized() throws Exception {
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		SVNStatusClient mockedStatus = mock(SVNStatusClient.class);
+		SVNClientManager mockedManager = spy(svn.getClientManager());
+		svn.setClientManager(mockedManager);
+		doReturn(mockedStatus).when(mockedManager).getStatusClient();
+		doAnswer(invocation -> {
+			started.countDown();
+			release.await();
+			return null;
+		}).when(mockedStatus).doStatus(any(File.class), anyBoolean());
+		Thread thread = new Thread(() -> svn.isWorkingCopyInited(null));
+		thread.start();
+		try {
+			started.await();
+			vcs.createBranch(null, NEW_BRANCH, "branch created");
+			assertNotNull(svn.getBranchEntry(NEW_BRANCH, -1));
+		} finally {
+			release.countDown();
+			thread.join();
+		}
+	}
+
 	@Test
 	public void testIsWorkingCopyInitedExceptions() throws Exception {
 		SVNStatusClient mockedStatus = mock(SVNStatusClient.class);
@@ -295,6 +358,7 @@ public class SVNVCSTest extends VCSAbstractTest {
 
 	@Test
 	public void setFileContentWCCorruption() throws Exception {
+		svn.setUseWorkingCopyForCommits(true);
 		SVNCommitClient mockedCommitClient = mock(SVNCommitClient.class);
 		svn.setClientManager(spy(svn.getClientManager()));
 		SVNClientManager manager = svn.getClientManager();
@@ -424,4 +488,845 @@ public class SVNVCSTest extends VCSAbstractTest {
 			checkEVCSException(e);
 		}
 	}
+
+	@Test
+	public void testTagIndexIncrementalUpdate() throws Exception {
+		vcs.createTag(null, "tag1", "tag1 created", null);
+		assertEquals(1, vcs.getTags().size());
+		SVNRepository mockedRepo = spy(svn.getSVNRepository());
+		svn.setSVNRepository(mockedRepo);
+		vcs.createTag(null, "tag2", "tag2 created", null);
+		assertEquals(2, vcs.getTags().size());
+		vcs.removeTag("tag1");
+		List<VCSTag> tags = vcs.getTags();
+		assertEquals(1, tags.size());
+		assertEquals("tag2", tags.get(0).getTagName());
+		assertEquals("tag2 created", tags.get(0).getTagMessage());
+		reset(mockedRepo);
+		assertEquals(1, vcs.getTags().size());
+		verify(mockedRepo, never()).log(any(String[].class), anyLong(), anyLong(), anyBoolean(), anyBoolean(), anyLong(),
+				any(ISVNLogEntryHandler.class));
+	}
+
+	@Test
+	public void testTagIndexCopyFromCommits() throws Exception {
+		VCSCommit commit1 = vcs.setFileContent(null, "file.txt", "content 1", "file added");
+		VCSCommit commit2 = vcs.setFileContent(null, "file.txt", "content 2", "file changed");
+		vcs.createTag(null, "tag1", "tag1 created", commit1.getRevision());
+		vcs.createTag(null, "tag2", "tag2 created", commit2.getRevision());
+		assertEquals(2, vcs.getTags().size());
+		SVNRepository mockedRepo = spy(svn.getSVNRepository());
+		svn.setSVNRepository(mockedRepo);
+		List<VCSTag> tags = vcs.getTags();
+		assertEquals("file added", tags.get(0).getRelatedCommit().getLogMessage());
+		assertEquals("file changed", tags.get(1).getRelatedCommit().getLogMessage());
+		verify(mockedRepo, never()).getRevisionProperties(anyLong(), any(SVNProperties.class));
+	}
+
+	@Test
+	public void testTagIndexTagsDirCopied() throws Exception {
+		vcs.setFileContent(null, "file.txt", "content", "file added");
+		vcs.createTag(null, "tag1", "tag1 created", null);
+		assertEquals(1, vcs.getTags().size());
+		SVNURL tagsUrl = SVNURL.parseURIEncoded(svn.getRepoUrl()).appendPath(SVNVCS.TAGS_PATH, false);
+		SVNURL movedTagsUrl = SVNURL.parseURIEncoded(svn.getRepoUrl()).appendPath("moved-tags", false);
+		svn.getClientManager().getCopyClient().doCopy(new SVNCopySource[] {
+				new SVNCopySource(SVNRevision.HEAD, SVNRevision.HEAD, tagsUrl)}, movedTagsUrl, true, false, true,
+				"tags moved", null);
+		svn.getClientManager().getCopyClient().doCopy(new SVNCopySource[] {
+				new SVNCopySource(SVNRevision.HEAD, SVNRevision.HEAD, movedTagsUrl)}, tagsUrl, true, false, true,
+				"tags moved back", null);
+		List<VCSTag> tags = vcs.getTags();
+		assertEquals(1, tags.size());
+		assertEquals("tag1", tags.get(0).getTagName());
+		assertEquals("tag1 created", tags.get(0).getTagMessage());
+
+		svn.setSVNRepository(svn.getSVNRepository()); // resets the index
+		tags = vcs.getTags();
+		assertEquals(1, tags.size());
+		assertEquals("tag1", tags.get(0).getTagName());
+	}
+
+	@Test
+	public void testBranchFirstCommitCache() throws Exception {
+		vcs.createBranch(null, NEW_BRANCH, "branch created");
+		vcs.setFileContent(NEW_BRANCH, "file.txt", "content", "file added");
+		long firstRevision = svn.getBranchFirstCommit(NEW_BRANCH).getRevision();
+		assertEquals(firstRevision, Long.parseLong(vcs.getCommitsRange(NEW_BRANCH, null, WalkDirection.ASC, 0).get(0).getRevision()));
+		SVNRepository mockedRepo = spy(svn.getSVNRepository());
+		svn.setSVNRepository(mockedRepo);
+		assertEquals(firstRevision, svn.getBranchFirstCommit(NEW_BRANCH).getRevision());
+		assertEquals(firstRevision, svn.getBranchFirstCommit(NEW_BRANCH).getRevision());
+		verify(mockedRepo, times(1)).log(any(String[].class), anyLong(), anyLong(), anyBoolean(), anyBoolean(), anyLong(),
+				any(ISVNLogEntryHandler.class));
+
+		vcs.deleteBranch(NEW_BRANCH, "branch deleted");
+		vcs.createBranch(null, NEW_BRANCH, "branch recreated");
+		long recreatedRevision = svn.getBranchFirstCommit(NEW_BRANCH).getRevision();
+		assertTrue(recreatedRevision > firstRevision);
+
+		// recreated by another client
+		SVNURL branchUrl = svn.getBranchUrl(NEW_BRANCH);
+		svn.getClientManager().getCommitClient().doDelete(new SVNURL[] {branchUrl}, "branch deleted");
+		svn.getClientManager().getCopyClient().doCopy(new SVNCopySource[] {
+				new SVNCopySource(SVNRevision.HEAD, SVNRevision.HEAD, svn.getBranchUrl(null))}, branchUrl, false, false,
+				true, "branch recreated", null);
+		assertTrue(svn.getBranchFirstCommit(NEW_BRANCH).getRevision() > recreatedRevision);
+	}
+
+	@Test
+	public void testGetHeadCommits() throws Exception {
+		vcs.createBranch(null, NEW_BRANCH, "branch created");
+		VCSCommit branchHead = vcs.setFileContent(NEW_BRANCH, "file.txt", "content", "file added to branch");
+		VCSCommit trunkHead = vcs.setFileContent(null, "file.txt", "content", "file added to trunk");
+		SVNRepository spiedRepo = spy(svn.getSVNRepository());
+		svn.setSVNRepository(spiedRepo);
+		Map<String, VCSCommit> heads = svn.getHeadCommits(Arrays.asList(null, NEW_BRANCH, "unexisting-branch"));
+		// missing branch is dropped and the log is requested once again, not per branch
+		verify(spiedRepo, times(2)).log(any(String[].class), anyLong(), anyLong(), anyBoolean(), anyBoolean(),
+				anyLong(), any(ISVNLogEntryHandler.class));
+		assertEquals(3, heads.size());
+		assertEquals(trunkHead.getRevision(), heads.get(null).getRevision());
+		assertEquals(branchHead.getRevision(), heads.get(NEW_BRANCH).getRevision());
+		assertEquals(vcs.getHeadCommit(NEW_BRANCH).getRevision(), heads.get(NEW_BRANCH).getRevision());
+		assertNull(heads.get("unexisting-branch"));
+	}
+
+	@Test
+	public void testBranchesDiffIsSameForAnyThreadsCount() throws Exception {
+		vcs.setFileContent(null, "deleted.txt", "deleted", "file added");
+		vcs.setFileContent(null, "modified.txt", "line", "file added");
+		vcs.createBranch(null, NEW_BRANCH, "branch created");
+		List<VCSChangeListNode> changes = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			changes.add(new VCSChangeListNode("folder/added" + i + ".txt", "added " + i, "file added"));
+		}
+		changes.add(new VCSChangeListNode("modified.txt", "line modified", "file modified"));
+		vcs.setFileContent(NEW_BRANCH, changes);
+		vcs.removeFile(NEW_BRANCH, "deleted.txt", "file removed");
+
+		svn.setDiffThreadsCount(1);
+		List<VCSDiffEntry> serialDiff = vcs.getBranchesDiff(NEW_BRANCH, null);
+		svn.setDiffThreadsCount(SVNVCS.DEFAULT_DIFF_THREADS_COUNT);
+		List<VCSDiffEntry> parallelDiff = vcs.getBranchesDiff(NEW_BRANCH, null);
+		assertEquals(13, serialDiff.size());
+		assertEquals(serialDiff.size(), parallelDiff.size());
+		for (int i = 0; i < serialDiff.size(); i++) {
+			assertEquals(serialDiff.get(i).getFilePath(), parallelDiff.get(i).getFilePath());
+			assertEquals(serialDiff.get(i).getChangeType(), parallelDiff.get(i).getChangeType());
+			assertEquals(serialDiff.get(i).getUnifiedDiff(), parallelDiff.get(i).getUnifiedDiff());
+			assertFalse(parallelDiff.get(i).getUnifiedDiff().isEmpty());
+		}
+
+		// the only shared worker is busy, diffs are produced by the calling thread
+		svn.setMaxWorkerThreads(1);
+		CountDownLatch release = new CountDownLatch(1);
+		svn.getWorkers().execute(() -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		try {
+			assertEquals(serialDiff.size(), vcs.getBranchesDiff(NEW_BRANCH, null).size());
+		} finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	public void testStreamingBranchesDiff() throws Exception {
+		vcs.setFileContent(null, "modified.txt", "line", "file added");
+		vcs.createBranch(null, NEW_BRANCH, "branch created");
+		vcs.setFileContent(NEW_BRANCH, "modified.txt", "line modified", "file modified");
+		vcs.setFileContent(NEW_BRANCH, "added.txt", "added", "file added");
+		List<VCSDiffEntry> diff = vcs.getBranchesDiff(NEW_BRANCH, null);
+
+		List<SVNLazyDiffEntry> streamed = new ArrayList<>();
+		List<String> unifiedDiffs = new ArrayList<>();
+		svn.getBranchesDiff(NEW_BRANCH, null, entry -> {
+			streamed.add(entry);
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			entry.writeUnifiedDiff(baos);
+			unifiedDiffs.add(new String(baos.toByteArray(), StandardCharsets.UTF_8));
+		});
+		assertEquals(diff.size(), streamed.size());
+		for (int i = 0; i < diff.size(); i++) {
+			assertEquals(diff.get(i).getFilePath(), streamed.get(i).getFilePath());
+			assertEquals(diff.get(i).getChangeType(), streamed.get(i).getChangeType());
+			assertEquals(diff.get(i).getUnifiedDiff(), unifiedDiffs.get(i));
+		}
+		try {
+			streamed.get(0).getUnifiedDiff();
+			fail();
+		} catch (IllegalStateException e) {
+			// diff is closed
+		}
+	}
+
+	@Test
+	public void testStreamingFileContent() throws Exception {
+		String content = "line 1\r\nline 2\n";
+		VCSCommit commit = vcs.setFileContent(null, "folder/file.txt", content, "file added");
+		vcs.setFileContent(null, "other.txt", "other", "other file added");
+		byte[] expected = content.getBytes(StandardCharsets.UTF_8);
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		SVNFileInfo info = svn.getFileContent(null, "folder/file.txt", null, baos);
+		assertArrayEquals(expected, baos.toByteArray());
+		assertEquals(vcs.getHeadCommit(null).getRevision(), info.getRevision());
+		assertEquals(commit.getRevision(), info.getCommittedRevision());
+
+		File target = File.createTempFile("svn-content", ".txt");
+		try {
+			info = svn.getFileContent(null, "folder/file.txt", commit.getRevision(), target.toPath());
+			assertArrayEquals(expected, Files.readAllBytes(target.toPath()));
+			assertEquals(commit.getRevision(), info.getRevision());
+		} finally {
+			target.delete();
+		}
+
+		try (SVNFileContentStream in = svn.getFileContentStream(null, "folder/file.txt", null)) {
+			assertArrayEquals(expected, IOUtils.toByteArray(in));
+			assertEquals(commit.getRevision(), in.getFileInfo().getCommittedRevision());
+		}
+
+		// stream closed early releases its worker and session
+		svn.setMaxSessions(1);
+		svn.setMaxWorkerThreads(1);
+		String large = StringUtils.repeat("large content line\n", 10000);
+		vcs.setFileContent(null, "large.txt", large, "large file added");
+		try (SVNFileContentStream in = svn.getFileContentStream(null, "large.txt", null)) {
+			assertEquals('l', in.read());
+		}
+		try (SVNFileContentStream in = svn.getFileContentStream(null, "large.txt", null)) {
+			assertEquals(large, IOUtils.toString(in, StandardCharsets.UTF_8));
+		}
+
+		try {
+			svn.getFileContentStream(null, "unexisting.txt", null);
+			fail();
+		} catch (EVCSFileNotFound e) {
+		}
+	}
+
+	@Test
+	public void testFileContentCache() throws Exception {
+		vcs.setFileContent(null, "file.txt", "content 1", "file added");
+		svn.setFileContentCacheSize(1024);
+		SVNRepository mockedRepo = spy(svn.getSVNRepository());
+		svn.setSVNRepository(mockedRepo);
+		assertEquals("content 1", vcs.getFileContent(null, "file.txt", null));
+		assertEquals("content 1", vcs.getFileContent(null, "file.txt", null));
+		assertEquals("content 1", vcs.getFileContent(null, "/file.txt", null));
+		verify(mockedRepo, times(1)).getFile(anyString(), anyLong(), any(SVNProperties.class), any(OutputStream.class));
+		verify(mockedRepo, times(1)).info(anyString(), anyLong());
+
+		VCSCommit commit = vcs.setFileContent(null, "file.txt", "content 2", "file changed");
+		assertEquals("content 2", vcs.getFileContent(null, "file.txt", null));
+		assertEquals("content 2", vcs.getFileContent(null, "file.txt", commit.getRevision()));
+		verify(mockedRepo, times(2)).getFile(anyString(), anyLong(), any(SVNProperties.class), any(OutputStream.class));
+
+		svn.setFileContentCacheSize(5);
+		assertEquals("content 2", vcs.getFileContent(null, "file.txt", null));
+		verify(mockedRepo, times(3)).getFile(anyString(), anyLong(), any(SVNProperties.class), any(OutputStream.class));
+	}
+
+	@Test
+	public void testGetFileContents() throws Exception {
+		List<VCSChangeListNode> changes = new ArrayList<>();
+		List<String> filePaths = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			changes.add(new VCSChangeListNode("folder/file" + i + ".txt", "content " + i, "file added"));
+			filePaths.add("folder/file" + i + ".txt");
+		}
+		VCSCommit commit = vcs.setFileContent(null, changes);
+		vcs.setFileContent(null, "folder/file0.txt", "content changed", "file changed");
+		filePaths.add("unexisting.txt");
+
+		Map<String, String> contents = svn.getFileContents(null, filePaths, commit.getRevision());
+		assertEquals(filePaths, new ArrayList<>(contents.keySet()));
+		for (int i = 0; i < 10; i++) {
+			assertEquals("content " + i, contents.get("folder/file" + i + ".txt"));
+		}
+		assertNull(contents.get("unexisting.txt"));
+		assertEquals("content changed", svn.getFileContents(null, filePaths, null).get("folder/file0.txt"));
+
+		try {
+			svn.getFileContents("unexisting-branch", filePaths, null);
+			fail();
+		} catch (EVCSBranchNotFound e) {
+		}
+	}
+
+	@Test
+	public void testSetFileContentWithoutWorkingCopy() throws Exception {
+		svn.setUseWorkingCopyForCommits(false);
+		IVCSRepositoryWorkspace mockedRepo = mock(IVCSRepositoryWorkspace.class);
+		svn.setRepo(mockedRepo);
+		SVNRepository mockedSVNRepo = spy(svn.getSVNRepository());
+		svn.setSVNRepository(mockedSVNRepo);
+		vcs.setFileContent(null, "folder/existing.txt", "line 1\nline 2\n", "file added");
+		List<VCSChangeListNode> changes = Arrays.asList(
+				new VCSChangeListNode("folder/existing.txt", "line 1\nline 2 modified\n", "file modified"),
+				new VCSChangeListNode("folder/sub folder/new.txt", "new", "file added"),
+				new VCSChangeListNode("folder-2/new.txt", "new 2", "file added"),
+				new VCSChangeListNode("root.txt", "root", "file added"));
+		VCSCommit commit = vcs.setFileContent(null, changes);
+		assertEquals(vcs.getHeadCommit(null).getRevision(), commit.getRevision());
+		assertEquals("file modified" + VCSChangeListNode.COMMIT_MESSAGES_SEPARATOR + "file added"
+				+ VCSChangeListNode.COMMIT_MESSAGES_SEPARATOR + "file added" + VCSChangeListNode.COMMIT_MESSAGES_SEPARATOR
+				+ "file added", commit.getLogMessage());
+		for (VCSChangeListNode change : changes) {
+			assertEquals(change.getContent(), vcs.getFileContent(null, change.getFilePath(), null));
+		}
+		assertEquals(VCSCommit.EMPTY, vcs.setFileContent(null, "root.txt", "root", "nothing changed"));
+		verify(mockedRepo, never()).getVCSLockedWorkingCopy();
+		verify(mockedSVNRepo, times(2)).getCommitEditor(anyString(), any(), anyBoolean(), any());
+		try {
+			vcs.setFileContent("unexisting-branch", "file.txt", "content", "file added");
+			fail();
+		} catch (EVCSBranchNotFound e) {
+		}
+	}
+
+	@Test
+	public void testSparseWorkingCopies() throws Exception {
+		svn.setUseWorkingCopyForCommits(true);
+		svn.setSparseWorkingCopies(true);
+		vcs.setFileContent(null, Arrays.asList(
+				new VCSChangeListNode("folder-1/file-1.txt", "content 1", "file added"),
+				new VCSChangeListNode("folder-2/file-2.txt", "content 2", "file added")));
+		vcs.createBranch(null, NEW_BRANCH, "branch created");
+		vcs.setFileContent(NEW_BRANCH, Arrays.asList(
+				new VCSChangeListNode("folder-2/file-2.txt", "content 2 modified", "file modified"),
+				new VCSChangeListNode("folder-3/sub folder/file-3.txt", "content 3", "file added")));
+		assertFalse(new File(mockedLWC.getFolder(), "folder-1").exists());
+
+		assertTrue(vcs.merge(NEW_BRANCH, null, MERGE_COMMIT_MESSAGE).getSuccess());
+		assertFalse(new File(mockedLWC.getFolder(), "folder-1/file-1.txt").exists());
+		assertEquals("content 1", vcs.getFileContent(null, "folder-1/file-1.txt", null));
+		assertEquals("content 2 modified", vcs.getFileContent(null, "folder-2/file-2.txt", null));
+		assertEquals("content 3", vcs.getFileContent(null, "folder-3/sub folder/file-3.txt", null));
+		assertTrue(vcs.getBranchesDiff(NEW_BRANCH, null).isEmpty());
+
+		svn.setSparseWorkingCopies(false);
+		vcs.setFileContent(null, "folder-2/file-2.txt", "content 2 modified again", "file modified");
+		assertTrue(new File(mockedLWC.getFolder(), "folder-1/file-1.txt").exists());
+	}
+
+	@Test
+	public void testConcurrentReads() throws Exception {
+		vcs.setFileContent(null, "folder/file.txt", "content", "file added");
+		svn.setMaxSessions(3);
+		svn.setSessionIdleTimeout(0);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < 32; i++) {
+				futures.add(executor.submit(() -> {
+					assertEquals("content", vcs.getFileContent(null, "folder/file.txt", null));
+					assertTrue(vcs.fileExists(null, "folder/file.txt"));
+					assertEquals(2, vcs.log(null, 0).size());
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		svn.setMaxSessions(1);
+		assertEquals("content", svn.getFileContents(null, Arrays.asList("folder/file.txt", "folder/file.txt"), null)
+				.get("folder/file.txt"));
+	}
+
+	@Test
+	public void testAsync() throws Exception {
+		VCSCommit commit = vcs.setFileContent(null, "file.txt", "content", "file added");
+		SVNVCSAsync async = new SVNVCSAsync(svn, Executors.newFixedThreadPool(4), 2);
+		async.setMaxConcurrentCalls(SVNVCSAsync.Operation.GET_FILE_CONTENT, 1);
+		List<CompletableFuture<String>> contents = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			contents.add(async.getFileContent(null, "file.txt", null));
+		}
+		for (CompletableFuture<String> content : contents) {
+			assertEquals("content", content.get());
+		}
+		assertEquals(commit.getRevision(), async.getHeadCommit(null).get().getRevision());
+		assertEquals(commit.getRevision(), async.log(null, 1).get().get(0).getRevision());
+		assertTrue(async.getBranches(null).get().contains("trunk"));
+		VCSTag tag = async.createTag(null, "tag", "tag created", null).get();
+		assertEquals(tag.getTagName(), async.getTags().get().get(0).getTagName());
+		try {
+			async.getFileContent(null, "unexisting.txt", null).get();
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof EVCSFileNotFound);
+		}
+
+		// calls over the limit are queued, not submitted to the executor
+		List<Runnable> submitted = new ArrayList<>();
+		async = new SVNVCSAsync(svn, submitted::add, 1);
+		CompletableFuture<VCSCommit> first = async.getHeadCommit(null);
+		CompletableFuture<VCSCommit> second = async.getHeadCommit(null);
+		assertEquals(1, submitted.size());
+		submitted.remove(0).run();
+		assertEquals(commit.getRevision(), first.get().getRevision());
+		assertEquals(1, submitted.size());
+		submitted.remove(0).run();
+		assertEquals(commit.getRevision(), second.get().getRevision());
+	}
+
+	@Test
+	public void testMetricsListener() throws Exception {
+		svn.setUseWorkingCopyForCommits(false);
+		vcs.setFileContent(null, "file.txt", "content", "file added");
+		final List<String> operations = new ArrayList<>();
+		final List<Long> bytes = new ArrayList<>();
+		final List<String> workingCopyOperations = new ArrayList<>();
+		svn.setMetricsListener(new ISVNMetricsListener() {
+			@Override
+			public void operationCompleted(String operation, long durationNanos, int repositoryCalls, long bytesCount) {
+				assertTrue(repositoryCalls > 0);
+				operations.add(operation);
+				bytes.add(bytesCount);
+			}
+
+			@Override
+			public void workingCopyUpdated(String operation, long durationNanos) {
+				workingCopyOperations.add(operation);
+			}
+		});
+		assertEquals("content", vcs.getFileContent(null, "file.txt", null));
+		vcs.getCommitsRange(null, null, WalkDirection.DESC, 0);
+		vcs.createBranch(null, NEW_BRANCH, "branch created");
+		vcs.merge(NEW_BRANCH, null, MERGE_COMMIT_MESSAGE);
+		assertEquals(Arrays.asList("getFileContent", "getCommitsRange", "createBranch", "merge"), operations);
+		assertEquals(Long.valueOf("content".length()), bytes.get(0));
+		assertEquals(Collections.singletonList("checkout"), workingCopyOperations);
+
+		svn.setMetricsListener(null);
+		assertEquals(ISVNMetricsListener.NO_OP, svn.getMetricsListener());
+	}
+
+	@Test
+	public void testLogCursor() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			vcs.setFileContent(null, "file.txt", "content " + i, "commit " + i);
+		}
+		vcs.createBranch(null, NEW_BRANCH, "branch created");
+		for (int i = 0; i < 4; i++) {
+			vcs.setFileContent(NEW_BRANCH, "file.txt", "branch content " + i, "branch commit " + i);
+		}
+		for (WalkDirection direction : WalkDirection.values()) {
+			for (String branchName : Arrays.asList(null, NEW_BRANCH)) {
+				List<String> expected = getRevisions(vcs.getCommitsRange(branchName, null, direction, 0));
+				assertEquals(expected, getRevisions(svn.getCommits(branchName, null, direction, 2)
+						.collect(Collectors.toList())));
+				assertEquals(expected.subList(0, 3), getRevisions(svn.getCommits(branchName, null, direction, 2).limit(3)
+						.collect(Collectors.toList())));
+			}
+		}
+		List<String> trunkRevisions = getRevisions(vcs.getCommitsRange(null, null, WalkDirection.DESC, 0));
+		assertEquals(trunkRevisions.subList(2, trunkRevisions.size()), getRevisions(svn.getCommits(null,
+				trunkRevisions.get(2), WalkDirection.DESC, 3).collect(Collectors.toList())));
+
+		SVNLogCursor cursor = svn.getLogCursor(NEW_BRANCH, null, WalkDirection.DESC, 10, true);
+		assertTrue(cursor.next().getChangedPaths().containsKey("/branches/" + NEW_BRANCH + "/file.txt"));
+		assertFalse(svn.getLogCursor(NEW_BRANCH, null, WalkDirection.DESC, 10, false).next().getChangedPaths()
+				.containsKey("/branches/" + NEW_BRANCH + "/file.txt"));
+	}
+
+	@Test
+	public void testCommitIndex() throws Exception {
+		vcs.setFileContent(null, "file.txt", "content", "trunk commit");
+		vcs.createBranch(null, NEW_BRANCH, "branch created");
+		vcs.setFileContent(NEW_BRANCH, "file.txt", "branch content", "branch commit");
+		vcs.setFileContent(null, "file.txt", "content 2", "trunk commit 2");
+		List<List<String>> expected = getIndexedQueries();
+		File indexDir = Files.createTempDirectory("svn-commit-index").toFile();
+		try {
+			svn.setCommitIndexDir(indexDir);
+			assertEquals(expected, getIndexedQueries());
+			assertEquals(1, indexDir.listFiles().length);
+
+			VCSCommit commit = vcs.setFileContent(NEW_BRANCH, "file.txt", "branch content 2", "branch commit 2");
+			assertEquals(commit.getRevision(), vcs.getHeadCommit(NEW_BRANCH).getRevision());
+			svn.setCommitIndexDir(null);
+			expected = getIndexedQueries();
+			// data appended by an interrupted sync is dropped
+			for (File file : indexDir.listFiles()[0].listFiles()) {
+				if (file.getName().endsWith(".dat") && !file.getName().equals("state.dat")) {
+					FileUtils.writeByteArrayToFile(file, new byte[] {1, 2, 3}, true);
+				}
+			}
+			svn.setCommitIndexDir(indexDir);
+			assertEquals(expected, getIndexedQueries());
+			assertNull(vcs.getHeadCommit("unknown-branch"));
+
+			List<SVNLogEntry> history = svn.getIndexedHistory(svn.getBranchName(NEW_BRANCH), -1, 0);
+			assertEquals(3, history.size());
+			assertEquals(history.subList(0, 2), svn.getIndexedHistory(svn.getBranchName(NEW_BRANCH), -1, 2));
+		} finally {
+			svn.setCommitIndexDir(null);
+			FileUtils.deleteDirectory(indexDir);
+		}
+	}
+
+	@Test
+	public void testBranchesCache() throws Exception {
+		vcs.createBranch(null, NEW_BRANCH, "branch created");
+		SVNRepository spiedRepo = spy(svn.getSVNRepository());
+		svn.setSVNRepository(spiedRepo);
+		Set<String> branches = vcs.getBranches("");
+		assertEquals(branches, vcs.getBranches(null));
+		assertEquals(branches, vcs.getBranches(""));
+		verify(spiedRepo, times(1)).getDir(anyString(), anyLong(), any(SVNProperties.class), any(Collection.class));
+
+		svn.setListingCacheMaxStaleness(60000);
+		vcs.getBranches("");
+		vcs.getBranches("");
+		verify(spiedRepo, times(3)).getLatestRevision();
+
+		vcs.createBranch(null, "new-branch-2", "branch created");
+		assertTrue(vcs.getBranches("").contains("new-branch-2"));
+		vcs.getTags();
+		verify(spiedRepo, times(4)).getLatestRevision();
+		svn.setListingCacheMaxStaleness(0);
+	}
+
+	@Test
+	public void testSnapshot() throws Exception {
+		VCSCommit commit = vcs.setFileContent(null, "file.txt", "content", "file added");
+		vcs.createTag(null, "tag1", "tag created", null);
+		SVNSnapshot snapshot = svn.openSnapshot();
+		assertSame(snapshot, svn.openSnapshot(snapshot.getRevision()));
+
+		vcs.setFileContent(null, "file.txt", "content 2", "file changed");
+		vcs.setFileContent(null, "file2.txt", "content", "file added");
+		vcs.createBranch(null, NEW_BRANCH, "branch created");
+		vcs.createTag(null, "tag2", "tag created", null);
+
+		assertEquals("content", snapshot.getFileContent(null, "file.txt"));
+		assertTrue(snapshot.fileExists(null, "file.txt"));
+		assertFalse(snapshot.fileExists(null, "file2.txt"));
+		assertFalse(snapshot.getBranches("").contains(NEW_BRANCH));
+		assertTrue(vcs.getBranches("").contains(NEW_BRANCH));
+		assertEquals(commit.getRevision(), snapshot.getHeadCommit(null).getRevision());
+		assertNull(snapshot.getHeadCommit(NEW_BRANCH));
+		assertEquals(commit.getRevision(), snapshot.log(null, 1).get(0).getRevision());
+		assertEquals(1, snapshot.getTags().size());
+		assertEquals("tag1", snapshot.getTags().get(0).getTagName());
+		assertEquals(2, vcs.getTags().size());
+
+		SVNSnapshot latest = svn.openSnapshot();
+		assertNotSame(snapshot, latest);
+		assertEquals("content 2", latest.getFileContent(null, "file.txt"));
+		assertSame(latest.getBranches(null), latest.getBranches(""));
+
+		Set<String> branches = latest.getBranches("");
+		for (int i = 0; i < SVNSnapshot.MAX_RESULTS; i++) {
+			latest.fileExists(null, "file" + i + ".txt");
+		}
+		assertNotSame(branches, latest.getBranches(""));
+	}
+
+	@Test
+	public void testMergeEligibleRevisionsOnly() throws Exception {
+		svn.setMergeEligibleRevisionsOnly(true);
+		vcs.setFileContent(null, "file.txt", "content", "file added");
+		vcs.createBranch(null, NEW_BRANCH, "branch created");
+		VCSCommit commit = vcs.setFileContent(NEW_BRANCH, "file.txt", "branch content", "file changed");
+		assertTrue(svn.getMergeEligibleRevisions(NEW_BRANCH, null).contains(commit.getRevision()));
+		assertTrue(vcs.merge(NEW_BRANCH, null, "merged").getSuccess());
+		assertEquals("branch content", vcs.getFileContent(null, "file.txt", null));
+		assertTrue(svn.getMergeEligibleRevisions(NEW_BRANCH, null).isEmpty());
+
+		commit = vcs.setFileContent(NEW_BRANCH, "file2.txt", "content", "file added");
+		assertEquals(Collections.singletonList(commit.getRevision()), svn.getMergeEligibleRevisions(NEW_BRANCH, null));
+		assertTrue(vcs.merge(NEW_BRANCH, null, "merged").getSuccess());
+		assertTrue(vcs.fileExists(null, "file2.txt"));
+		assertTrue(svn.getMergeEligibleRevisions(NEW_BRANCH, null).isEmpty());
+
+		IVCSRepositoryWorkspace mockedRepo = mock(IVCSRepositoryWorkspace.class);
+		svn.setRepo(mockedRepo);
+		assertTrue(vcs.merge(NEW_BRANCH, null, "merged").getSuccess());
+		verify(mockedRepo, never()).getVCSLockedWorkingCopy();
+	}
+
+	@Test
+	public void testPreviewMerge() throws Exception {
+		vcs.setFileContent(null, "file1.txt", "line 1\nline 2\nline 3\n", "file added");
+		vcs.setFileContent(null, "file2.txt", "line 1\nline 2\nline 3\n", "file added");
+		vcs.createBranch(null, NEW_BRANCH, "branch created");
+		vcs.setFileContent(NEW_BRANCH, "file1.txt", "line 1\nbranch line 2\nline 3\n", "file changed");
+		vcs.setFileContent(NEW_BRANCH, "file2.txt", "branch line 1\nline 2\nline 3\n", "file changed");
+		assertTrue(svn.previewMerge(NEW_BRANCH, null).getSuccess());
+
+		vcs.setFileContent(null, "file1.txt", "line 1\ntrunk line 2\nline 3\n", "file changed");
+		vcs.setFileContent(null, "file2.txt", "line 1\nline 2\ntrunk line 3\n", "file changed");
+		VCSMergeResult preview = new SVNVCSAsync(svn).previewMerge(NEW_BRANCH, null).get();
+		assertFalse(preview.getSuccess());
+		assertEquals(Collections.singletonList("file1.txt"), preview.getConflictingFiles());
+		VCSMergeResult result = vcs.merge(NEW_BRANCH, null, "merged");
+		assertEquals(result.getSuccess(), preview.getSuccess());
+		assertEquals(result.getConflictingFiles().size(), preview.getConflictingFiles().size());
+		assertTrue(result.getConflictingFiles().get(0).startsWith("file1.txt"));
+	}
+
+	@Test
+	public void testPreviewMergeAfterCherryPick() throws Exception {
+		vcs.setFileContent(null, "file.txt", "line 1\nline 2\nline 3\nline 4\nline 5\n", "file added");
+		vcs.createBranch(null, NEW_BRANCH, "branch created");
+		vcs.setFileContent(NEW_BRANCH, "file.txt", "branch 1\nline 2\nline 3\nline 4\nline 5\n", "file changed");
+		VCSCommit picked = vcs.setFileContent(NEW_BRANCH, "file.txt",
+				"branch 1\nline 2\nline 3\nline 4\nbranch 5\n", "file changed");
+		vcs.setFileContent(NEW_BRANCH, "file.txt", "branch 1\nline 2\nbranch 3\nline 4\nbranch 5\n",
+				"file changed");
+		File wc = Files.createTempDirectory("svn-cherry-pick").toFile();
+		try {
+			long pickedRevision = Long.parseLong(picked.getRevision());
+			SVNClientManager manager = svn.getClientManager();
+			manager.getUpdateClient().doCheckout(svn.getBranchUrl(null), wc, SVNRevision.HEAD, SVNRevision.HEAD,
+					SVNDepth.INFINITY, false);
+			manager.getDiffClient().doMerge(svn.getBranchUrl(NEW_BRANCH), SVNRevision.HEAD,
+					Collections.singleton(new SVNRevisionRange(SVNRevision.create(pickedRevision - 1),
+							SVNRevision.create(pickedRevision))), wc, SVNDepth.INFINITY, true, false, false, false);
+			manager.getCommitClient().doCommit(new File[] {wc}, false, "cherry-picked", null, null, false, false,
+					SVNDepth.INFINITY);
+		} finally {
+			FileUtils.deleteDirectory(wc);
+		}
+		// trunk changes the cherry-picked line, later branch revisions do not touch it
+		vcs.setFileContent(null, "file.txt", "line 1\nline 2\nline 3\nline 4\ntrunk 5\n", "file changed");
+		assertFalse(svn.getMergeEligibleRevisions(NEW_BRANCH, null).contains(picked.getRevision()));
+
+		VCSMergeResult preview = svn.previewMerge(NEW_BRANCH, null);
+		assertTrue(preview.getSuccess());
+		svn.setMergeEligibleRevisionsOnly(true);
+		VCSMergeResult result = vcs.merge(NEW_BRANCH, null, "merged");
+		assertEquals(result.getSuccess(), preview.getSuccess());
+		assertEquals("branch 1\nline 2\nbranch 3\nline 4\ntrunk 5\n", vcs.getFileContent(null, "file.txt", null));
+	}
+
+	@Test
+	public void testWarmWorkingCopies() throws Exception {
+		svn.setUseWorkingCopyForCommits(true);
+		svn.setWarmWorkingCopiesPerBranch(1);
+		svn.setMaxWarmWorkingCopies(1);
+		vcs.setFileContent(null, "file.txt", "content", "file added");
+		vcs.setFileContent(null, "file.txt", "content 2", "file changed");
+		verify(mockedLWC, never()).close();
+		verify(localVCSRepo, times(1)).getVCSLockedWorkingCopy();
+
+		vcs.createBranch(null, NEW_BRANCH, "branch created");
+		vcs.setFileContent(NEW_BRANCH, "file.txt", "branch content", "file changed");
+		verify(localVCSRepo, times(2)).getVCSLockedWorkingCopy();
+		verify(mockedLWC, times(1)).close(); // trunk copy is evicted
+		assertEquals("branch content", vcs.getFileContent(NEW_BRANCH, "file.txt", null));
+
+		svn.setWarmWorkingCopiesUpdateInterval(10);
+		vcs.setFileContent(NEW_BRANCH, "file.txt", "branch content 2", "file changed");
+		vcs.setFileContent(NEW_BRANCH, "file.txt", "branch content 3", "file changed");
+		svn.setWarmWorkingCopiesUpdateInterval(0);
+		verify(localVCSRepo, times(2)).getVCSLockedWorkingCopy();
+		svn.releaseWarmWorkingCopies();
+		verify(mockedLWC, times(2)).close();
+	}
+
+	@Test
+	public void testExport() throws Exception {
+		vcs.setFileContent(null, "file1.txt", "content 1", "file added");
+		vcs.setFileContent(null, "folder/file2.txt", "content 2", "file added");
+		vcs.setFileContent(null, "file3.txt", "content 3", "file added");
+		String exportedRevision = vcs.getHeadCommit(null).getRevision();
+		File target = Files.createTempDirectory("svn-export").toFile();
+		try {
+			svn.setExportCheckouts(true);
+			svn.setMaxSessions(1); // files failing the checksum are read again once the session is released
+			vcs.checkout(null, target.getPath(), null);
+			assertFalse(new File(target, ".svn").exists());
+			assertEquals("content 1", FileUtils.readFileToString(new File(target, "file1.txt"), StandardCharsets.UTF_8));
+			assertEquals("content 2", FileUtils.readFileToString(new File(target, "folder/file2.txt"), StandardCharsets.UTF_8));
+
+			vcs.setFileContent(null, "file1.txt", "content 1 changed", "file changed");
+			vcs.removeFile(null, "file3.txt", "file removed");
+			FileUtils.writeStringToFile(new File(target, "file1.txt"), "local change", StandardCharsets.UTF_8);
+			File unchanged = new File(target, "folder/file2.txt");
+			long modified = unchanged.lastModified();
+			assertEquals(vcs.getHeadCommit(null).getRevision(), svn.export(null, target.getPath(), null));
+			assertEquals("content 1 changed", FileUtils.readFileToString(new File(target, "file1.txt"), StandardCharsets.UTF_8));
+			assertFalse(new File(target, "file3.txt").exists());
+			assertEquals(modified, unchanged.lastModified()); // not changed since the previous export
+
+			assertEquals(exportedRevision, svn.export(null, target.getPath(), exportedRevision));
+			assertEquals("content 1", FileUtils.readFileToString(new File(target, "file1.txt"), StandardCharsets.UTF_8));
+			assertEquals("content 3", FileUtils.readFileToString(new File(target, "file3.txt"), StandardCharsets.UTF_8));
+			assertTrue(new File(target, SVNExporter.MANIFEST_FILE_NAME).exists());
+			assertEquals(0, target.listFiles((dir, name) -> name.endsWith(".tmp")).length);
+
+			vcs.setFileContent(null, "folder/file2.txt", "content 2 changed", "file changed");
+			FileUtils.deleteDirectory(new File(target, "folder"));
+			svn.export(null, target.getPath(), null);
+			assertEquals("content 2 changed", FileUtils.readFileToString(new File(target, "folder/file2.txt"),
+					StandardCharsets.UTF_8));
+		} finally {
+			FileUtils.deleteDirectory(target);
+		}
+	}
+
+	@Test
+	public void testExportExternals() throws Exception {
+		vcs.setFileContent(null, "folder/file.txt", "content", "file added");
+		svn.getClientManager().getWCClient().doSetProperty(svn.getBranchUrl(null), SVNProperty.EXTERNALS,
+				SVNPropertyValue.create(svn.getBranchUrl(null).appendPath("folder", false) + " folder-ext"), SVNRevision.HEAD,
+				"externals set", null, false, null);
+		File target = Files.createTempDirectory("svn-export").toFile();
+		try {
+			svn.export(null, target.getPath(), null);
+			assertEquals("content", FileUtils.readFileToString(new File(target, "folder-ext/file.txt"),
+					StandardCharsets.UTF_8));
+			File marker = new File(target, "folder-ext/marker");
+			assertTrue(marker.createNewFile());
+
+			vcs.setFileContent(null, "file.txt", "content", "file added");
+			svn.export(null, target.getPath(), null);
+			assertTrue(marker.exists()); // external is up to date, not exported again
+
+			vcs.setFileContent(null, "folder/file.txt", "content 2", "file changed");
+			svn.export(null, target.getPath(), null);
+			assertFalse(marker.exists());
+			assertEquals("content 2", FileUtils.readFileToString(new File(target, "folder-ext/file.txt"),
+					StandardCharsets.UTF_8));
+		} finally {
+			FileUtils.deleteDirectory(target);
+		}
+
+		List<SVNExporter.External> externals = SVNExporter.parseExternals(
+				"# comment\n-r 5 ^/lib/a@7 a\n../b@HEAD \"b dir\"\nc -r3 http://host/c\n");
+		assertEquals(3, externals.size());
+		assertEquals("a", externals.get(0).path);
+		assertEquals(SVNRevision.create(5), externals.get(0).revision);
+		assertEquals(SVNRevision.create(7), externals.get(0).pegRevision);
+		assertEquals("b dir", externals.get(1).path);
+		assertEquals(SVNRevision.HEAD, externals.get(1).pegRevision);
+		assertEquals("c", externals.get(2).path);
+		assertEquals(SVNRevision.create(3), externals.get(2).pegRevision);
+
+		SVNURL root = SVNURL.parseURIEncoded("http://host:8080/repo");
+		SVNURL owner = root.appendPath("trunk/dir", false);
+		assertEquals(root.appendPath("lib/a", false), SVNExporter.resolveUrl("^/lib/a", root, owner));
+		assertEquals(root.appendPath("trunk/b", false), SVNExporter.resolveUrl("../b", root, owner));
+		assertEquals(SVNURL.parseURIEncoded("http://other/x"), SVNExporter.resolveUrl("//other/x", root, owner));
+		assertEquals(SVNURL.parseURIEncoded("http://host:8080/x"), SVNExporter.resolveUrl("/x", root, owner));
+	}
+
+	@Test
+	public void testCreateTagsAndBranches() throws Exception {
+		VCSCommit commit1 = vcs.setFileContent(null, "file.txt", "content 1", "file added");
+		vcs.setFileContent(null, "file.txt", "content 2", "file changed");
+		VCSCommit branchesCommit = svn.createBranches(Arrays.asList(
+				new SVNBranchCopy(null, null, NEW_BRANCH),
+				new SVNBranchCopy(null, commit1.getRevision(), "new-branch-2")), "branches created");
+		assertEquals(Long.toString(Long.parseLong(commit1.getRevision()) + 2), branchesCommit.getRevision());
+		assertEquals("content 2", vcs.getFileContent(NEW_BRANCH, "file.txt", null));
+		assertEquals("content 1", vcs.getFileContent("new-branch-2", "file.txt", null));
+
+		String latestRevision = vcs.getHeadCommit(null).getRevision();
+		svn.setMaxSessions(1); // tagged commits are read on the session leased for the commit
+		List<VCSTag> tags = svn.createTags(Arrays.asList(
+				new SVNBranchCopy(null, null, "tag1"),
+				new SVNBranchCopy("new-branch-2", null, "tag2"),
+				new SVNBranchCopy(null, commit1.getRevision(), "tag3")), "tags created");
+		assertEquals(Arrays.asList("tag1", "tag2", "tag3"),
+				tags.stream().map(VCSTag::getTagName).collect(Collectors.toList()));
+		assertEquals(latestRevision, tags.get(0).getRelatedCommit().getRevision());
+		assertEquals(branchesCommit.getRevision(), tags.get(1).getRelatedCommit().getRevision());
+		assertEquals(commit1.getRevision(), tags.get(2).getRelatedCommit().getRevision());
+		assertEquals(3, vcs.getTags().size());
+
+		try {
+			svn.createTags(Arrays.asList(new SVNBranchCopy(null, null, "tag4"), new SVNBranchCopy(null, null, "tag1")),
+					"tags created");
+			fail();
+		} catch (EVCSTagExists e) {
+		}
+		assertEquals(3, vcs.getTags().size());
+
+		// missing parent dirs are created for branches but not for tags, as by createBranch and createTag
+		svn.createBranches(Collections.singletonList(new SVNBranchCopy(null, null, "group/branch")), "branch created");
+		assertEquals("content 2", vcs.getFileContent("group/branch", "file.txt", null));
+		svn.getClientManager().getCommitClient().doDelete(new SVNURL[] {
+				SVNURL.parseURIEncoded(svn.getRepoUrl()).appendPath(SVNVCS.TAGS_PATH, false)}, "tags removed");
+		try {
+			svn.createTags(Collections.singletonList(new SVNBranchCopy(null, null, "tag4")), "tag created");
+			fail();
+		} catch (EVCSException e) {
+		}
+		try {
+			vcs.createTag(null, "tag4", "tag created", null);
+			fail();
+		} catch (EVCSException e) {
+		}
+	}
+
+	@Test
+	public void testBatchRemove() throws Exception {
+		vcs.setFileContent(null, "file1.txt", "content", "file added");
+		vcs.setFileContent(null, "folder/file2.txt", "content", "file added");
+		vcs.setFileContent(null, "folder/file3.txt", "content", "file added");
+		svn.createBranches(Arrays.asList(new SVNBranchCopy(null, null, NEW_BRANCH),
+				new SVNBranchCopy(null, null, "new-branch-2"), new SVNBranchCopy(null, null, "new-branch-3")),
+				"branches created");
+		svn.createTags(Arrays.asList(new SVNBranchCopy(null, null, "tag1"), new SVNBranchCopy(null, null, "tag2")),
+				"tags created");
+
+		List<VCSCommit> commits = svn.removeFiles(null, Arrays.asList("file1.txt", "folder/file2.txt"), "files removed");
+		assertEquals(1, commits.size());
+		assertEquals(vcs.getHeadCommit(null).getRevision(), commits.get(0).getRevision());
+		assertFalse(vcs.fileExists(null, "file1.txt"));
+		assertFalse(vcs.fileExists(null, "folder/file2.txt"));
+		assertTrue(vcs.fileExists(null, "folder/file3.txt"));
+
+		svn.setMaxDeletesPerCommit(2);
+		commits = svn.removePaths(Arrays.asList(SVNVCS.BRANCHES_PATH + NEW_BRANCH, SVNVCS.TAGS_PATH + "tag1",
+				SVNVCS.TAGS_PATH + "tag1/folder", SVNVCS.MASTER_PATH + "folder/file3.txt"), "paths removed");
+		assertEquals(2, commits.size());
+		assertEquals(new HashSet<>(Arrays.asList("trunk", "new-branch-2", "new-branch-3")), vcs.getBranches(""));
+		assertEquals(1, vcs.getTags().size());
+		assertFalse(vcs.fileExists(null, "folder/file3.txt"));
+
+		assertEquals(1, svn.deleteBranches(Arrays.asList("new-branch-2", "new-branch-3"), "branches removed").size());
+		assertEquals(Collections.singleton("trunk"), vcs.getBranches(""));
+		assertEquals(1, svn.removeTags(Collections.singletonList("tag2"), "tag removed").size());
+		assertTrue(vcs.getTags().isEmpty());
+	}
+
+	private List<List<String>> getIndexedQueries() {
+		List<List<String>> res = new ArrayList<>();
+		for (String branchName : Arrays.asList(null, NEW_BRANCH)) {
+			res.add(getRevisions(vcs.log(branchName, 0)));
+			res.add(getRevisions(vcs.log(branchName, 2)));
+			res.add(getRevisions(vcs.getCommitsRange(branchName, null, WalkDirection.ASC, 0)));
+			res.add(getRevisions(vcs.getCommitsRange(branchName, null, WalkDirection.DESC, 2)));
+			res.add(getRevisions(vcs.getCommitsRange(branchName, "3", WalkDirection.ASC, 0)));
+			res.add(getRevisions(vcs.getCommitsRange(branchName, "4", WalkDirection.DESC, 0)));
+			res.add(getRevisions(vcs.getCommitsRange(branchName, null, null)));
+			res.add(getRevisions(vcs.getCommitsRange(branchName, "2", "4")));
+			res.add(getRevisions(new ArrayList<>(svn.getHeadCommits(Arrays.asList(null, branchName)).values())));
+			res.add(Collections.singletonList(vcs.getHeadCommit(branchName).getRevision()));
+		}
+		return res;
+	}
+
+	private List<String> getRevisions(List<VCSCommit> commits) {
+		List<String> res = new ArrayList<>();
+		for (VCSCommit commit : commits) {
+			res.add(commit.getRevision());
+		}
+		return res;
+	}
 }